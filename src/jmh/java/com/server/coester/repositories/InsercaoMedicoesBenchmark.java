@@ -0,0 +1,141 @@
+package com.server.coester.repositories;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+
+// Gravação de um bloco de N medições como o Hibernate faz em cada estratégia de id.
+// Precisa de um Postgres: -Dcoester.bench.url=jdbc:postgresql://localhost:5432/coesterdb (usuário/senha admin).
+// Usa tabelas próprias (bench_medicoes_*), criadas e apagadas pelo benchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsercaoMedicoesBenchmark {
+
+    private static final String DIMENSOES = "{\"diametro\": 10.02, \"comprimento\": 49.97, \"espessura\": 2.01}";
+    private static final int BLOCO_SEQUENCIA = 50;
+
+    @Param({"1", "50", "500"})
+    public int medicoes;
+
+    private Connection conexao;
+    private Connection conexaoReescrita;
+    private int pecaNumero;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        String url = System.getProperty("coester.bench.url", "jdbc:postgresql://localhost:5432/coesterdb");
+        String usuario = System.getProperty("coester.bench.usuario", "admin");
+        String senha = System.getProperty("coester.bench.senha", "admin");
+
+        conexao = DriverManager.getConnection(url, usuario, senha);
+        conexaoReescrita = DriverManager.getConnection(
+                url + (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true", usuario, senha);
+
+        try (Statement statement = conexao.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS bench_medicoes_identity (
+                        id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                        lote_id bigint NOT NULL, peca_numero integer NOT NULL, dimensoes jsonb,
+                        status varchar(255), observacoes varchar(255), data timestamp(6))""");
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS bench_medicoes_sequencia (
+                        id bigint PRIMARY KEY,
+                        lote_id bigint NOT NULL, peca_numero integer NOT NULL, dimensoes jsonb,
+                        status varchar(255), observacoes varchar(255), data timestamp(6))""");
+            statement.execute("CREATE SEQUENCE IF NOT EXISTS bench_medicoes_seq INCREMENT BY " + BLOCO_SEQUENCIA);
+        }
+        conexao.setAutoCommit(false);
+        conexaoReescrita.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws SQLException {
+        conexao.rollback();
+        conexaoReescrita.rollback();
+        try (Statement statement = conexao.createStatement()) {
+            conexao.setAutoCommit(true);
+            statement.execute("DROP TABLE IF EXISTS bench_medicoes_identity, bench_medicoes_sequencia");
+            statement.execute("DROP SEQUENCE IF EXISTS bench_medicoes_seq");
+        }
+        conexao.close();
+        conexaoReescrita.close();
+    }
+
+    // GenerationType.IDENTITY: o Hibernate não faz batch e cada medição é um INSERT ... RETURNING id
+    @Benchmark
+    public long identity() throws SQLException {
+        long ultimoId = 0;
+        try (PreparedStatement insert = conexao.prepareStatement(
+                "INSERT INTO bench_medicoes_identity (lote_id, peca_numero, dimensoes, status, observacoes, data) "
+                        + "VALUES (?, ?, CAST(? AS jsonb), ?, ?, ?)", new String[]{"id"})) {
+            for (int i = 0; i < medicoes; i++) {
+                preencher(insert, 1);
+                insert.executeUpdate();
+                try (ResultSet ids = insert.getGeneratedKeys()) {
+                    ids.next();
+                    ultimoId = ids.getLong(1);
+                }
+            }
+        }
+        conexao.commit();
+        return ultimoId;
+    }
+
+    // Sequência pooled + hibernate.jdbc.batch_size, sem reWriteBatchedInserts
+    @Benchmark
+    public int[] sequenciaBatch() throws SQLException {
+        return inserirEmBatch(conexao);
+    }
+
+    // Configuração atual: sequência pooled + batch + reWriteBatchedInserts (INSERT multi-linha)
+    @Benchmark
+    public int[] sequenciaBatchReescrito() throws SQLException {
+        return inserirEmBatch(conexaoReescrita);
+    }
+
+    private int[] inserirEmBatch(Connection conexao) throws SQLException {
+        int[] resultado = new int[0];
+        try (PreparedStatement proximoBloco = conexao.prepareStatement("SELECT nextval('bench_medicoes_seq')");
+             PreparedStatement insert = conexao.prepareStatement(
+                     "INSERT INTO bench_medicoes_sequencia (lote_id, peca_numero, dimensoes, status, observacoes, data, id) "
+                             + "VALUES (?, ?, CAST(? AS jsonb), ?, ?, ?, ?)")) {
+            long id = 0;
+            long ultimoDoBloco = -1;
+            for (int i = 0; i < medicoes; i++) {
+                // Um nextval a cada 50 ids, como o otimizador pooled
+                if (id > ultimoDoBloco) {
+                    try (ResultSet valor = proximoBloco.executeQuery()) {
+                        valor.next();
+                        ultimoDoBloco = valor.getLong(1);
+                        id = ultimoDoBloco - BLOCO_SEQUENCIA + 1;
+                    }
+                }
+                preencher(insert, 1);
+                insert.setLong(7, id++);
+                insert.addBatch();
+                if ((i + 1) % BLOCO_SEQUENCIA == 0) {
+                    resultado = insert.executeBatch();
+                }
+            }
+            if (medicoes % BLOCO_SEQUENCIA != 0) {
+                resultado = insert.executeBatch();
+            }
+        }
+        conexao.commit();
+        return resultado;
+    }
+
+    private void preencher(PreparedStatement insert, long loteId) throws SQLException {
+        insert.setLong(1, loteId);
+        insert.setInt(2, ++pecaNumero);
+        insert.setString(3, DIMENSOES);
+        insert.setString(4, "APROVADO");
+        insert.setString(5, null);
+        insert.setTimestamp(6, new Timestamp(System.currentTimeMillis()));
+    }
+}
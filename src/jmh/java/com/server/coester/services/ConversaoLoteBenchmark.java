@@ -0,0 +1,104 @@
+package com.server.coester.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.server.coester.dtos.LoteResponse;
+import com.server.coester.dtos.MedicaoResponse;
+import com.server.coester.entities.EstatisticaCota;
+import com.server.coester.entities.Lote;
+import com.server.coester.entities.Medicao;
+import com.server.coester.entities.TipoPeca;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Conversão e serialização de um lote com N medições e recálculo das estatísticas em memória
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversaoLoteBenchmark {
+
+    private static final TypeReference<List<MedicaoResponse>> LISTA_MEDICOES = new TypeReference<>() {};
+
+    @Param({"10", "100", "1000", "10000"})
+    public int medicoes;
+
+    @Param({"2", "8", "32"})
+    public int cotas;
+
+    private TipoPeca tipoPeca;
+    private Lote lote;
+    private List<Medicao> entidades;
+    private List<MedicaoResponse> respostas;
+    private String medicoesJson;
+    private LoteService loteService;
+    private SpcService spcService;
+    private AvaliadorTolerancia avaliador;
+
+    @Setup
+    public void preparar() throws Exception {
+        tipoPeca = DadosBenchmark.tipoPeca(cotas);
+        MetadadosCotasCache metadadosCotasCache = DadosBenchmark.metadadosCotasCache();
+        AvaliadorToleranciaCache avaliadorToleranciaCache = DadosBenchmark.avaliadorToleranciaCache(metadadosCotasCache);
+        loteService = DadosBenchmark.loteService(metadadosCotasCache, avaliadorToleranciaCache);
+        spcService = new SpcService();
+        avaliador = avaliadorToleranciaCache.obter(tipoPeca);
+
+        lote = DadosBenchmark.lote(tipoPeca, medicoes);
+        entidades = DadosBenchmark.medicoes(lote, medicoes, cotas, avaliador);
+        respostas = entidades.stream().map(loteService::toMedicaoResponse).toList();
+        medicoesJson = DadosBenchmark.OBJECT_MAPPER.writeValueAsString(respostas);
+    }
+
+    // Entidades -> LoteResponse (o que GET /api/lotes/{id} monta antes de serializar)
+    @Benchmark
+    public LoteResponse toLoteResponse() {
+        List<MedicaoResponse> convertidas = entidades.stream().map(loteService::toMedicaoResponse).toList();
+        return loteService.toLoteResponse(lote, convertidas);
+    }
+
+    // LoteResponse -> JSON da resposta HTTP
+    @Benchmark
+    public String serializarLoteResponse() throws Exception {
+        return DadosBenchmark.OBJECT_MAPPER.writeValueAsString(loteService.toLoteResponse(lote, respostas));
+    }
+
+    // Ida e volta das medições em JSON (sucessor de toJson/parseMedicoesJson do campo legado medicoes_json)
+    @Benchmark
+    public List<MedicaoResponse> medicoesJsonIdaEVolta() throws Exception {
+        String json = DadosBenchmark.OBJECT_MAPPER.writeValueAsString(respostas);
+        return DadosBenchmark.OBJECT_MAPPER.readValue(json, LISTA_MEDICOES);
+    }
+
+    @Benchmark
+    public List<MedicaoResponse> parseMedicoesJson() throws Exception {
+        return DadosBenchmark.OBJECT_MAPPER.readValue(medicoesJson, LISTA_MEDICOES);
+    }
+
+    // Recontagem dos contadores do lote a partir das medições (o que recalcularEstatisticas faz no banco)
+    @Benchmark
+    public Lote recalcularEstatisticas() {
+        lote.setStatus("EM_ANDAMENTO");
+        lote.setQuantidadeAmostras(0);
+        lote.setPecasAprovadas(0);
+        for (Medicao medicao : entidades) {
+            loteService.aplicarMedicaoNasEstatisticas(lote, medicao.getStatus(), 1);
+        }
+        return lote;
+    }
+
+    // Reconstrução das estatísticas de SPC (Welford + subgrupos) de todas as cotas
+    @Benchmark
+    public Map<String, EstatisticaCota> recalcularSpc() {
+        Map<String, EstatisticaCota> porCota = new HashMap<>();
+        for (Medicao medicao : entidades) {
+            spcService.acumular(lote, avaliador, medicao.getDimensoes(), porCota);
+        }
+        return porCota;
+    }
+}
@@ -0,0 +1,83 @@
+package com.server.coester.services;
+
+import com.server.coester.dtos.TipoPecaResponse;
+import com.server.coester.entities.TipoPeca;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Caminhos que dependem só do número de cotas do TipoPeca: classificação de uma medição
+// (toda chamada de adicionarMedicao) e montagem do TipoPecaResponse
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CotasBenchmark {
+
+    @Param({"2", "8", "32"})
+    public int cotas;
+
+    private TipoPeca tipoPeca;
+    private LoteService loteService;
+    private MetadadosCotasCache metadadosCotasCache;
+    private AvaliadorTolerancia avaliador;
+    private Map<String, Double>[] dimensoes;
+    private int proxima;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void preparar() {
+        tipoPeca = DadosBenchmark.tipoPeca(cotas);
+        metadadosCotasCache = DadosBenchmark.metadadosCotasCache();
+        AvaliadorToleranciaCache avaliadorToleranciaCache = DadosBenchmark.avaliadorToleranciaCache(metadadosCotasCache);
+        loteService = DadosBenchmark.loteService(metadadosCotasCache, avaliadorToleranciaCache);
+        avaliador = avaliadorToleranciaCache.obter(tipoPeca);
+
+        Random random = new Random(42);
+        dimensoes = new Map[1024];
+        for (int i = 0; i < dimensoes.length; i++) {
+            dimensoes[i] = DadosBenchmark.dimensoes(cotas, random);
+        }
+    }
+
+    private Map<String, Double> proximaMedicao() {
+        proxima = (proxima + 1) & (dimensoes.length - 1);
+        return dimensoes[proxima];
+    }
+
+    // Caminho completo do service: cache do avaliador + avaliação
+    @Benchmark
+    public String calcularStatusMedicao() {
+        return loteService.calcularStatusMedicao(proximaMedicao(), tipoPeca);
+    }
+
+    // Só a avaliação do avaliador já compilado
+    @Benchmark
+    public String avaliar() {
+        return avaliador.avaliar(proximaMedicao());
+    }
+
+    // Custo de uma troca de versão do TipoPeca (parse + compilação)
+    @Benchmark
+    public AvaliadorTolerancia compilarAvaliador() {
+        return AvaliadorTolerancia.compilar(tipoPeca.getMetadadosCotas(),
+                DadosBenchmark.metadadosCotasCache().obter(tipoPeca));
+    }
+
+    // TipoPecaResponse com as cotas do cache (caminho normal das listagens)
+    @Benchmark
+    public TipoPecaResponse tipoPecaResponse() {
+        return new TipoPecaResponse(tipoPeca, metadadosCotasCache.obter(tipoPeca));
+    }
+
+    // TipoPecaResponse com parse das cotas (primeiro acesso ou nova versão do TipoPeca)
+    @Benchmark
+    public TipoPecaResponse tipoPecaResponseSemCache() {
+        metadadosCotasCache.invalidar(tipoPeca.getId());
+        return new TipoPecaResponse(tipoPeca, metadadosCotasCache.obter(tipoPeca));
+    }
+}
@@ -0,0 +1,112 @@
+package com.server.coester.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.coester.entities.Lote;
+import com.server.coester.entities.Medicao;
+import com.server.coester.entities.TipoPeca;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Massa de dados e montagem dos services fora do Spring (injeção por reflexão nos campos @Autowired)
+final class DadosBenchmark {
+
+    static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    private DadosBenchmark() {
+    }
+
+    static TipoPeca tipoPeca(int cotas) {
+        StringBuilder json = new StringBuilder("{\"dimensoes\": [");
+        for (int i = 0; i < cotas; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"nome\": \"cota").append(i)
+                    .append("\", \"label\": \"Cota ").append(i)
+                    .append("\", \"tipo\": \"number\", \"unidade\": \"mm\", \"tolerancia\": 0.1, \"valorPadrao\": ")
+                    .append(10.0 + i).append('}');
+        }
+        json.append("]}");
+
+        TipoPeca tipoPeca = new TipoPeca();
+        tipoPeca.setId(1L);
+        tipoPeca.setNome("Benchmark " + cotas + " cotas");
+        tipoPeca.setMetadadosCotas(json.toString());
+        return tipoPeca;
+    }
+
+    // Valores em torno do nominal: ~95% de cada cota dentro da tolerância (2 sigma)
+    static Map<String, Double> dimensoes(int cotas, Random random) {
+        Map<String, Double> dimensoes = new LinkedHashMap<>();
+        for (int i = 0; i < cotas; i++) {
+            dimensoes.put("cota" + i, 10.0 + i + random.nextGaussian() * 0.05);
+        }
+        return dimensoes;
+    }
+
+    static Lote lote(TipoPeca tipoPeca, int quantidadeMedicoes) {
+        Lote lote = new Lote();
+        lote.setId(1L);
+        lote.setCodigoLote("LOTE-BENCH");
+        lote.setDescricao("Lote de benchmark");
+        lote.setTipoPeca(tipoPeca);
+        lote.setQuantidadePecas(quantidadeMedicoes * 2);
+        lote.setQuantidadeAmostrasDesejada(quantidadeMedicoes);
+        return lote;
+    }
+
+    static List<Medicao> medicoes(Lote lote, int quantidade, int cotas, AvaliadorTolerancia avaliador) {
+        Random random = new Random(42);
+        LocalDateTime data = LocalDateTime.of(2025, 1, 1, 8, 0);
+        List<Medicao> medicoes = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Medicao medicao = new Medicao();
+            medicao.setId((long) i + 1);
+            medicao.setLote(lote);
+            medicao.setPecaNumero(i + 1);
+            medicao.setData(data.plusSeconds(i * 30L));
+            medicao.setDimensoes(dimensoes(cotas, random));
+            medicao.setStatus(avaliador.avaliar(medicao.getDimensoes()));
+            medicoes.add(medicao);
+        }
+        return medicoes;
+    }
+
+    static MetadadosCotasCache metadadosCotasCache() {
+        MetadadosCotasCache cache = new MetadadosCotasCache();
+        injetar(cache, "objectMapper", OBJECT_MAPPER);
+        return cache;
+    }
+
+    static AvaliadorToleranciaCache avaliadorToleranciaCache(MetadadosCotasCache metadadosCotasCache) {
+        AvaliadorToleranciaCache cache = new AvaliadorToleranciaCache();
+        injetar(cache, "metadadosCotasCache", metadadosCotasCache);
+        return cache;
+    }
+
+    // Só as dependências usadas pelos métodos medidos (cálculo e conversão, sem repositórios)
+    static LoteService loteService(MetadadosCotasCache metadadosCotasCache, AvaliadorToleranciaCache avaliadorToleranciaCache) {
+        LoteService loteService = new LoteService();
+        injetar(loteService, "metadadosCotasCache", metadadosCotasCache);
+        injetar(loteService, "avaliadorToleranciaCache", avaliadorToleranciaCache);
+        injetar(loteService, "objectMapper", OBJECT_MAPPER);
+        return loteService;
+    }
+
+    private static void injetar(Object alvo, String campo, Object valor) {
+        try {
+            Field field = alvo.getClass().getDeclaredField(campo);
+            field.setAccessible(true);
+            field.set(alvo, valor);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Campo " + campo + " não encontrado em " + alvo.getClass().getSimpleName(), e);
+        }
+    }
+}
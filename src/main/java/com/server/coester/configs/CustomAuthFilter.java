@@ -1,31 +1,35 @@
 package com.server.coester.configs;
+import com.server.coester.dtos.UsuarioAutenticado;
+import com.server.coester.entities.Usuario;
 import com.server.coester.services.UsuarioService;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.Base64;
-import java.util.Collections;
 
 // O filtro deve ser usado após a autenticação (Basic)
+@Slf4j
 public class CustomAuthFilter extends OncePerRequestFilter {
 
-    // ✅ CORREÇÃO: Usamos a interface do Spring Security
-    private final UserDetailsService userDetailsService;
+    private final UsuarioService usuarioService;
     private final PasswordEncoder passwordEncoder;
+    private final ObservationRegistry observationRegistry;
 
-    // ✅ CORREÇÃO: O construtor recebe a interface
-    public CustomAuthFilter(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
-        this.userDetailsService = userDetailsService;
+    public CustomAuthFilter(UsuarioService usuarioService, PasswordEncoder passwordEncoder,
+                            ObservationRegistry observationRegistry) {
+        this.usuarioService = usuarioService;
         this.passwordEncoder = passwordEncoder;
+        this.observationRegistry = observationRegistry;
     }
 
     @Override
@@ -42,6 +46,10 @@ public class CustomAuthFilter extends OncePerRequestFilter {
             return;
         }
 
+        // Consulta ao usuário + BCrypt: a etapa mais cara do modo Basic
+        Observation observacao = Observation.start("coester.autenticacao", observationRegistry)
+                .lowCardinalityKeyValue("modo", "basic");
+        String resultado = "falha";
         try {
             // 1. Extrai e decodifica o Basic Auth
             String base64Credentials = authHeader.substring(6);
@@ -55,31 +63,36 @@ public class CustomAuthFilter extends OncePerRequestFilter {
             String email = parts[0];
             String rawPassword = parts[1]; // Senha em formato de texto simples
 
-            // 2. Carrega o UserDetails (usuário e senha hasheada)
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+            // 2. Carrega o usuário (única consulta ao banco desta requisição)
+            Usuario usuario = usuarioService.buscarPorEmail(email)
+                    .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado com email: " + email));
 
             // 3. Verifica a senha usando o PasswordEncoder
-            if (passwordEncoder.matches(rawPassword, userDetails.getPassword())) {
+            if (passwordEncoder.matches(rawPassword, usuario.getPassword())) {
 
-                // 4. Cria o objeto de autenticação
+                // 4. Cria o objeto de autenticação com id e roles no principal
+                UsuarioAutenticado principal = UsuarioAutenticado.de(usuario);
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
-                                userDetails, // Principal (o objeto UserDetails)
+                                principal,   // Principal (id, email, nome e roles)
                                 null,        // Credenciais (null após validação)
-                                userDetails.getAuthorities() // Autoridades/Roles
+                                principal.authorities() // Autoridades/Roles
                         );
 
                 // 5. Define a autenticação no contexto de segurança
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                System.out.println("Usuário autenticado: " + email);
+                resultado = "sucesso";
+                log.debug("Usuário autenticado: {}", email);
             } else {
-                System.out.println("Senha inválida para: " + email);
+                log.debug("Senha inválida para: {}", email);
                 // O fluxo de segurança padrão lidará com a falha (geralmente 401 Unauthorized)
             }
 
         } catch (Exception e) {
-            System.err.println("Erro durante a autenticação Basic: " + e.getMessage());
+            log.debug("Erro durante a autenticação Basic: {}", e.getMessage());
             // A exceção fará com que o request siga e seja bloqueado pelo .anyRequest().authenticated()
+        } finally {
+            observacao.lowCardinalityKeyValue("resultado", resultado).stop();
         }
 
         filterChain.doFilter(request, response);
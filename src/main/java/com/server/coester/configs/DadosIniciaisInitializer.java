@@ -0,0 +1,30 @@
+package com.server.coester.configs;
+
+import com.server.coester.services.EstatisticaPeriodoService;
+import com.server.coester.services.MigracaoMedicoesService;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ajustes de dados da subida que precisam terminar antes do Tomcat aceitar requisições: uma escrita
+ * concorrente no meio deles perderia ou duplicaria dados (ver cada serviço).
+ * afterSingletonsInstantiated roda com todos os beans prontos (repositories, transações) e antes do
+ * start dos Lifecycle, entre eles o servidor web. As tarefas rodam em sequência, na ordem abaixo.
+ */
+@Component
+public class DadosIniciaisInitializer implements SmartInitializingSingleton {
+
+    @Autowired
+    private MigracaoMedicoesService migracaoMedicoesService;
+
+    @Autowired
+    private EstatisticaPeriodoService estatisticaPeriodoService;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migracaoMedicoesService.migrarMedicoesLegadas();
+        // Depois da migração: a reconstrução do rollup lê a tabela medicoes
+        estatisticaPeriodoService.reconstruirSeVazio();
+    }
+}
@@ -0,0 +1,51 @@
+package com.server.coester.configs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Cria os índices de busca que o ddl-auto não sabe gerar (expressões e operator classes do pg_trgm).
+ * - btree em (lower(texto) COLLATE "C", id): busca por prefixo ("abc%") já na ordem do ORDER BY, então o
+ *   LIMIT para no índice; substitui os antigos idx_*_prefixo (text_pattern_ops), que não serviam para ordenar
+ * - GiST gist_trgm_ops em lower(texto): trecho (LIKE '%abc%') e similaridade por palavra (<%), as duas
+ *   ordenadas por distância (<<->) com LIMIT
+ * - GIN nas medições: jsonb_path_ops em dimensoes (contenção @>) e gin_trgm_ops em lower(observacoes)
+ * Todos os comandos são idempotentes; uma falha (ex.: sem permissão para CREATE EXTENSION) só gera aviso
+ * e a busca continua funcionando, sem índice.
+ */
+@Slf4j
+@Component
+public class IndicesBuscaInitializer {
+
+    private static final List<String> COMANDOS = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE INDEX IF NOT EXISTS idx_lotes_descricao_prefixo_c ON lotes (lower(descricao) COLLATE \"C\", id)",
+            "DROP INDEX IF EXISTS idx_lotes_descricao_prefixo",
+            "CREATE INDEX IF NOT EXISTS idx_lotes_descricao_trgm ON lotes USING gist (lower(descricao) gist_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_tipos_peca_nome_prefixo_c ON tipos_peca (lower(nome) COLLATE \"C\", id)",
+            "DROP INDEX IF EXISTS idx_tipos_peca_nome_prefixo",
+            "CREATE INDEX IF NOT EXISTS idx_tipos_peca_nome_trgm ON tipos_peca USING gist (lower(nome) gist_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_medicoes_dimensoes ON medicoes USING gin (dimensoes jsonb_path_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_medicoes_observacoes_trgm ON medicoes USING gin (lower(observacoes) gin_trgm_ops)"
+    );
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void criarIndices() {
+        for (String comando : COMANDOS) {
+            try {
+                jdbcTemplate.execute(comando);
+            } catch (Exception e) {
+                log.warn("Não foi possível criar índice de busca ({}): {}", comando, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.server.coester.configs;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Amostragem dos logs DEBUG/TRACE por requisição (configurado no logback-spring.xml).
+ * Com DEBUG ligado para um pacote da aplicação, cada logger emite no máximo
+ * {@code maximoPorSegundo} eventos por segundo; o excedente é descartado antes de formatar a mensagem.
+ * INFO e acima nunca passam por aqui.
+ */
+public class LimiteDebugTurboFilter extends TurboFilter {
+
+    private static final class Janela {
+        private volatile long segundo;
+        private final AtomicInteger eventos = new AtomicInteger();
+    }
+
+    private final ConcurrentHashMap<String, Janela> janelas = new ConcurrentHashMap<>();
+
+    private String prefixo = "com.server.coester";
+    private int maximoPorSegundo = 20;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // isDebugEnabled() chega aqui com format null: não consome a cota.
+        // Nível desligado: NEUTRAL e o próprio Logger descarta (isEnabledFor aqui chamaria este filtro de novo)
+        if (level == null || level.isGreaterOrEqual(Level.INFO) || format == null
+                || !logger.getName().startsWith(prefixo) || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+
+        long agora = System.currentTimeMillis() / 1000;
+        Janela janela = janelas.computeIfAbsent(logger.getName(), nome -> new Janela());
+        if (janela.segundo != agora) {
+            // Corrida na virada do segundo só deixa passar alguns eventos a mais
+            janela.segundo = agora;
+            janela.eventos.set(0);
+        }
+        return janela.eventos.incrementAndGet() <= maximoPorSegundo ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setPrefixo(String prefixo) {
+        this.prefixo = prefixo;
+    }
+
+    public void setMaximoPorSegundo(int maximoPorSegundo) {
+        this.maximoPorSegundo = maximoPorSegundo;
+    }
+}
@@ -1,5 +1,9 @@
 package com.server.coester.configs;
+import com.server.coester.services.TokenService;
 import com.server.coester.services.UsuarioService;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -67,19 +71,32 @@ public class SecurityConfiguration {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http, UserDetailsService userDetailsService) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, UserDetailsService userDetailsService,
+                                           TokenService tokenService, ObservationRegistry observationRegistry,
+                                           @Value("${coester.auth.basic.habilitado:true}") boolean basicHabilitado) throws Exception {
         http
                 // Aplicação da configuração CORS
                 .cors(cors -> cors.configurationSource(corsConfigurationSource())) // Adicionado CORS
                 .authorizeHttpRequests(authz -> authz
-                        .requestMatchers("/auth/**").permitAll()
+                        .requestMatchers("/auth/**", "/api/auth/login").permitAll()
+                        // Só na porta de gerenciamento (management.server), ligada em 127.0.0.1
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                        // Fim de respostas assíncronas (SSE): a requisição original já foi autorizada
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .anyRequest().authenticated()
                 )
-                // Passe o userDetailsService no lugar do UsuarioService
-                .addFilterBefore(new CustomAuthFilter((UsuarioService) userDetailsService, passwordEncoder()),
-                        UsernamePasswordAuthenticationFilter.class)
+                // Token "Bearer" emitido no login (validação só por HMAC)
+                .addFilterBefore(new TokenAuthFilter(tokenService, observationRegistry), UsernamePasswordAuthenticationFilter.class)
                 .csrf(csrf -> csrf.disable());
 
+        // Modo de compatibilidade: Basic com BCrypt a cada requisição
+        if (basicHabilitado) {
+            // Passe o userDetailsService no lugar do UsuarioService
+            http.addFilterBefore(new CustomAuthFilter((UsuarioService) userDetailsService, passwordEncoder(),
+                    observationRegistry),
+                    UsernamePasswordAuthenticationFilter.class);
+        }
+
         return http.build();
     }
 
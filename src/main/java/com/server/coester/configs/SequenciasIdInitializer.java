@@ -0,0 +1,49 @@
+package com.server.coester.configs;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Alinha as sequências dos ids (pooled, blocos de 50) com as linhas gravadas quando os ids eram IDENTITY.
+ * O ddl-auto cria cada sequência começando em 1; se a tabela já tem ids maiores, a sequência avança até o
+ * maior id e o primeiro bloco alocado começa logo depois dele. Depois disso o comando não altera mais nada
+ * (só age quando a tabela está à frente da sequência).
+ * Roda antes do Tomcat aceitar requisições e antes dos listeners de ApplicationReadyEvent que gravam.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class SequenciasIdInitializer {
+
+    // sequência -> tabela
+    private static final Map<String, String> SEQUENCIAS = Map.of(
+            "lotes_seq", "lotes",
+            "tipos_peca_seq", "tipos_peca",
+            "usuarios_seq", "usuarios",
+            "medicoes_seq", "medicoes",
+            "estatisticas_cota_seq", "estatisticas_cota"
+    );
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alinharSequencias() {
+        SEQUENCIAS.forEach((sequencia, tabela) -> {
+            try {
+                // setval(seq, maior id): o próximo nextval devolve maior id + 50, e o bloco vai de maior id + 1 em diante
+                jdbcTemplate.queryForList("SELECT setval('" + sequencia + "', t.maior_id) FROM "
+                        + "(SELECT MAX(id) AS maior_id FROM " + tabela + ") t "
+                        + "WHERE t.maior_id >= (SELECT last_value FROM " + sequencia + ")");
+            } catch (Exception e) {
+                log.warn("Não foi possível alinhar a sequência {} com {}: {}", sequencia, tabela, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.server.coester.configs;
+import com.server.coester.dtos.UsuarioAutenticado;
+import com.server.coester.services.TokenService;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+
+// Autenticação por token "Bearer" emitido no login: só verifica o HMAC, sem banco e sem BCrypt
+public class TokenAuthFilter extends OncePerRequestFilter {
+
+    private final TokenService tokenService;
+    private final ObservationRegistry observationRegistry;
+
+    public TokenAuthFilter(TokenService tokenService, ObservationRegistry observationRegistry) {
+        this.tokenService = tokenService;
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String authHeader = request.getHeader("Authorization");
+
+        // Sem "Bearer": segue para o CustomAuthFilter (Basic) ou para o .permitAll()
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Observation observacao = Observation.start("coester.autenticacao", observationRegistry)
+                .lowCardinalityKeyValue("modo", "bearer");
+        boolean autenticado = false;
+        try {
+            autenticado = tokenService.validarToken(authHeader.substring(7).trim()).map(sessao -> {
+                // O principal já leva id e roles: os services não precisam buscar o usuário no banco
+                UsuarioAutenticado principal =
+                        new UsuarioAutenticado(sessao.id(), sessao.email(), sessao.nome(), sessao.roles());
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.authorities());
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+                return true;
+            }).orElse(false);
+        } finally {
+            observacao.lowCardinalityKeyValue("resultado", autenticado ? "sucesso" : "falha").stop();
+        }
+        // Token inválido/expirado: segue sem autenticação e é barrado pelo .anyRequest().authenticated()
+
+        filterChain.doFilter(request, response);
+    }
+}
@@ -2,6 +2,7 @@ package com.server.coester.controllers;
 
 import com.server.coester.dtos.UsuarioDto;
 import com.server.coester.services.UsuarioService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/admin")
 public class AdministradorController {
@@ -41,7 +43,6 @@ public class AdministradorController {
     public ResponseEntity<List<UsuarioDto>> getAllUsuarios() {
         try {
             List<UsuarioDto> usuarios = usuarioService.getAllUsuarios();
-            System.out.println(usuarios);
             // 1. TRATAMENTO DE LISTA VAZIA: Retorna 204 No Content
             if (usuarios.isEmpty()) {
                 // É uma resposta HTTP mais semântica do que 200 OK com corpo vazio
@@ -53,8 +54,7 @@ public class AdministradorController {
 
         } catch (Exception e) {
             // 3. TRATAMENTO DE ERRO GENÉRICO: Retorna 500 Internal Server Error
-            // Adicione logging aqui para registrar o erro no servidor
-            System.err.println("Erro ao buscar lista de usuários: " + e.getMessage());
+            log.error("Erro ao buscar lista de usuários", e);
 
             // Retorna um erro interno, possivelmente com uma mensagem de erro
             return ResponseEntity
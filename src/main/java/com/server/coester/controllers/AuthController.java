@@ -4,6 +4,7 @@ import com.server.coester.dtos.UsuarioDto;
 import com.server.coester.dtos.UsuarioDtoResume;
 import com.server.coester.dtos.UsuarioLoginResponse;
 import com.server.coester.entities.Usuario;
+import com.server.coester.services.TokenService;
 import com.server.coester.services.UsuarioService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,9 +15,11 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final UsuarioService usuarioService;
+    private final TokenService tokenService;
 
-    public AuthController(UsuarioService usuarioService) {
+    public AuthController(UsuarioService usuarioService, TokenService tokenService) {
         this.usuarioService = usuarioService;
+        this.tokenService = tokenService;
     }
     @PreAuthorize("hasAuthority('ADMINISTRADOR')")
     // Registro de usuário
@@ -45,19 +48,24 @@ public class AuthController {
                     String encodedToken = java.util.Base64.getEncoder().encodeToString(token.getBytes());
                     String basicToken = "Basic " + encodedToken;
 
-                    // 2. Cria o objeto de resposta usando o Record
+                    // 2. Token assinado: as próximas requisições não precisam de banco nem de BCrypt
+                    String tokenSessao = tokenService.gerarToken(u);
+
+                    // 3. Cria o objeto de resposta usando o Record
                     UsuarioLoginResponse response = new UsuarioLoginResponse(
                             basicToken,
                             u.getUsername(),
-                            u.getArrayRoles()
+                            u.getArrayRoles(),
+                            tokenSessao,
+                            tokenService.getValidadeSegundos()
                     );
 
-                    // 3. Retorna o objeto JSON 200 OK
+                    // 4. Retorna o objeto JSON 200 OK
                     return ResponseEntity.ok(response);
                 })
                 // ... (Restante do tratamento de erro)
                 .orElse(ResponseEntity.status(401).body(
-                        new UsuarioLoginResponse(null, null, null)
+                        new UsuarioLoginResponse(null, null, null, null, null)
                 ));
     }
 
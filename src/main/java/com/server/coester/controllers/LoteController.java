@@ -2,15 +2,27 @@ package com.server.coester.controllers;
 
 import com.server.coester.dtos.*;
 import com.server.coester.entities.Lote;
+import com.server.coester.services.EventosLoteService;
+import com.server.coester.services.ImportacaoLotesService;
+import com.server.coester.services.ImportacaoMedicoesService;
 import com.server.coester.services.LoteService;
+import com.server.coester.services.SpcService;
+import com.server.coester.services.UsuarioService;
 
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.security.access.prepost.PreAuthorize; // Import necessário
@@ -22,6 +34,21 @@ public class LoteController {
     @Autowired
     private LoteService loteService;
 
+    @Autowired
+    private ImportacaoMedicoesService importacaoMedicoesService;
+
+    @Autowired
+    private ImportacaoLotesService importacaoLotesService;
+
+    @Autowired
+    private SpcService spcService;
+
+    @Autowired
+    private EventosLoteService eventosLoteService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
     // CREATE - Criar novo lote
     // RESTRITO: APENAS ADMINISTRADOR
     @PostMapping
@@ -34,6 +61,23 @@ public class LoteController {
         }
     }
 
+    // Criar lotes a partir de um arquivo de ordens de produção (NDJSON ou CSV), lido em streaming e gravado em blocos
+    // NDJSON: um CriarLoteRequest por linha, ex. {"descricao": "...", "tipoPecaId": 3, "quantidadePecas": 500, "quantidadeAmostrasDesejada": 50}
+    // CSV: cabeçalho com descricao, tipoPecaId, quantidadePecas, quantidadeAmostrasDesejada e (opcional) observacoes
+    // Interrompida no meio: 207 com o relatório parcial (os lotes já criados estão em "lotes")
+    @PostMapping(value = "/importar",
+            consumes = {"application/x-ndjson", "application/jsonl", "text/csv", "text/plain"})
+    public ResponseEntity<ImportacaoLotesResponse> importarLotes(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream corpo) {
+        try {
+            ImportacaoLotesResponse response = importacaoLotesService.importar(corpo, contentType);
+            return ResponseEntity.status(response.interrompida() ? HttpStatus.MULTI_STATUS : HttpStatus.OK)
+                    .body(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
     // ⭐ NOVO ENDPOINT: READ - Listar todos os lotes (Apenas Administrador)
     @GetMapping("/todos")
@@ -51,10 +95,20 @@ public class LoteController {
     }
 
     // READ - Obter lote específico com detalhes
+    // ?medicoes=false omite a lista de medições (lotes grandes: usar GET /{id}/medicoes?tamanho=...)
+    // ETag pelas versões do lote e do tipo de peça: If-None-Match igual -> 304 sem carregar lote nem medições
     @GetMapping("/{id}")
-    public ResponseEntity<LoteResponse> obterLote(@PathVariable Long id) {
-        return loteService.obterLotePorId(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<LoteResponse> obterLote(
+            @PathVariable Long id,
+            @RequestParam(name = "medicoes", defaultValue = "true") boolean incluirMedicoes,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<String> etag = loteService.etagLote(id, incluirMedicoes);
+        if (etag.isPresent() && RespostaCondicional.naoModificado(ifNoneMatch, etag.get())) {
+            return RespostaCondicional.respostaNaoModificada(etag.get());
+        }
+        // O ETag é lido antes do corpo: uma escrita no meio só faz o cliente baixar de novo na próxima vez
+        return loteService.obterLotePorId(id, incluirMedicoes)
+                .map(lote -> RespostaCondicional.ok(etag.orElse(null), lote))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -66,8 +120,36 @@ public class LoteController {
 
     // READ - Buscar lotes por descrição
     @GetMapping("/buscar")
-    public List<LoteResumidoResponse> buscarLotes(@RequestParam String descricao) {
-        return loteService.buscarLotesPorDescricao(descricao);
+    public List<LoteResumidoResponse> buscarLotes(@RequestParam String descricao,
+                                                  @RequestParam(required = false) Integer limite) {
+        return loteService.buscarLotesPorDescricao(descricao, limite);
+    }
+
+    // READ - Lotes com alguma medição cuja observação contém o texto (mínimo de 3 caracteres)
+    @GetMapping("/buscar/observacao")
+    public ResponseEntity<List<LoteResumidoResponse>> buscarLotesPorObservacao(@RequestParam String texto) {
+        try {
+            return ResponseEntity.ok(loteService.buscarLotesPorObservacaoMedicao(texto));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // READ - Lotes com alguma medição contendo exatamente estes valores, ex. {"diametro": 25.0}
+    @PostMapping("/buscar/dimensoes")
+    public ResponseEntity<List<LoteResumidoResponse>> buscarLotesPorDimensoes(@RequestBody Map<String, Double> dimensoes) {
+        try {
+            return ResponseEntity.ok(loteService.buscarLotesPorDimensoesMedicao(dimensoes));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // READ - Lotes com pelo menos uma medição reprovada (todos os usuários: apenas Administrador)
+    @GetMapping("/com-reprovacoes")
+    @PreAuthorize("hasAuthority('ADMINISTRADOR')")
+    public List<LoteResumidoResponse> listarLotesComReprovacoes() {
+        return loteService.listarLotesComMedicoesReprovadas();
     }
 
     // UPDATE - Atualizar lote
@@ -78,6 +160,9 @@ public class LoteController {
         try {
             LoteResponse response = loteService.atualizarLote(id, request);
             return ResponseEntity.ok(response);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Lote alterado por outra escrita (@Version) durante a atualização: o cliente pode repetir
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -125,6 +210,38 @@ public class LoteController {
         }
     }
 
+    // Adicionar várias medições de uma vez (estações que acumulam leituras)
+    @PostMapping("/{loteId}/medicoes/batch")
+    public ResponseEntity<AdicionarMedicoesLoteResponse> adicionarMedicoes(
+            @PathVariable Long loteId,
+            @Valid @RequestBody AdicionarMedicoesLoteRequest request) {
+        try {
+            AdicionarMedicoesLoteResponse response = loteService.adicionarMedicoes(loteId, request.medicoes());
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Importar arquivo de medições (NDJSON ou CSV) lido em streaming, gravado em blocos
+    // NDJSON: uma linha por medição, ex. {"dimensoes": {"comprimento": 50.01}, "observacoes": "..."}
+    // CSV: cabeçalho com os nomes das cotas (e opcionalmente "observacoes"), uma medição por linha
+    // Interrompida no meio: 207 com o relatório parcial (reenviar a partir de ultimaLinhaGravada + 1)
+    @PostMapping(value = "/{loteId}/medicoes/importar",
+            consumes = {"application/x-ndjson", "application/jsonl", "text/csv", "text/plain"})
+    public ResponseEntity<ImportacaoMedicoesResponse> importarMedicoes(
+            @PathVariable Long loteId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream corpo) {
+        try {
+            ImportacaoMedicoesResponse response = importacaoMedicoesService.importar(loteId, corpo, contentType);
+            return ResponseEntity.status(response.interrompida() ? HttpStatus.MULTI_STATUS : HttpStatus.OK)
+                    .body(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PatchMapping("/{id}/recomecar")
     public ResponseEntity<LoteResponse> recomecarLote(@PathVariable Long id) {
         LoteResponse response = loteService.recomecarLote(id);
@@ -142,6 +259,33 @@ public class LoteController {
         }
     }
 
+    // Total de medições do lote e quantas foram aprovadas/reprovadas, contadas na tabela medicoes
+    @GetMapping("/{loteId}/medicoes/estatisticas")
+    public ResponseEntity<Map<String, Object>> estatisticasMedicoes(@PathVariable Long loteId) {
+        try {
+            return ResponseEntity.ok(loteService.getEstatisticasMedicoes(loteId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Listar medições paginadas por cursor: ?tamanho=100&apos=<proximoCursor>&status=REPROVADO
+    @GetMapping(value = "/{loteId}/medicoes", params = "tamanho")
+    public ResponseEntity<PaginaMedicoesResponse> listarMedicoesPaginadas(
+            @PathVariable Long loteId,
+            @RequestParam int tamanho,
+            @RequestParam(required = false) Integer apos,
+            @RequestParam(required = false) String status) {
+        try {
+            PaginaMedicoesResponse pagina = loteService.listarMedicoesPaginadas(loteId, apos, tamanho, status);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     // Remover medição específica
     @DeleteMapping("/{loteId}/medicoes/{medicaoId}")
     public ResponseEntity<LoteResponse> removerMedicao(
@@ -175,6 +319,28 @@ public class LoteController {
         }
     }
 
+    // Recalcular estatísticas do lote a partir das medições (reparo dos contadores)
+    @PreAuthorize("hasAuthority('ADMINISTRADOR')")
+    @PatchMapping("/{id}/recalcular-estatisticas")
+    public ResponseEntity<LoteResponse> recalcularEstatisticas(@PathVariable Long id) {
+        try {
+            LoteResponse response = loteService.repararEstatisticas(id);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // SPC - Cp/Cpk, média, desvio padrão e limites X-barra/R por cota (O(cotas), sem reler as medições)
+    @GetMapping("/{id}/spc")
+    public ResponseEntity<EstatisticasSpcResponse> obterSpc(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(spcService.obterSpc(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     // Reabrir lote
     @PatchMapping("/{id}/reabrir")
     public ResponseEntity<LoteResponse> reabrirLote(@PathVariable Long id) {
@@ -186,6 +352,23 @@ public class LoteController {
         }
     }
 
+    // EVENTOS AO VIVO (SSE) - substituem o polling de GET /{id} e /dashboard
+
+    // Medições novas, contadores e mudanças de status de um lote
+    @GetMapping(value = "/{id}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> acompanharLote(@PathVariable Long id) {
+        if (!loteService.existeLote(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(eventosLoteService.assinarLote(id));
+    }
+
+    // Todos os eventos dos lotes do usuário logado (dashboard)
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter acompanharMeusLotes() {
+        return eventosLoteService.assinarUsuario(usuarioService.getUsuarioAutenticadoPrincipal().id());
+    }
+
     // DASHBOARD E ESTATÍSTICAS
 
     // ALTERAÇÃO: Usa o novo DashboardResponse
@@ -196,12 +379,14 @@ public class LoteController {
     }
 
     @GetMapping("/estatisticas/periodo")
-    public ResponseEntity<List<Object[]>> obterEstatisticasPorPeriodo(
+    public ResponseEntity<List<EstatisticaPeriodoResponse>> obterEstatisticasPorPeriodo(
             @RequestParam String dataInicio,
-            @RequestParam String dataFim) {
+            @RequestParam String dataFim,
+            @RequestParam(defaultValue = "DIA") String granularidade) {
         try {
-            // Assume que o service irá buscar os dados do usuário logado
-            List<Object[]> estatisticas = loteService.getEstatisticasPorPeriodo(dataInicio, dataFim);
+            // Lê o rollup por dia (DIA) ou por hora (HORA): uma linha por período do intervalo
+            List<EstatisticaPeriodoResponse> estatisticas =
+                    loteService.getEstatisticasPorPeriodo(dataInicio, dataFim, granularidade);
             return ResponseEntity.ok(estatisticas);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
@@ -0,0 +1,53 @@
+package com.server.coester.controllers;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * GET condicional com ETag: o controller calcula o ETag (só as versões, ver @Version em Lote/TipoPeca)
+ * e, se o If-None-Match do cliente bate, responde 304 sem carregar nem serializar nada.
+ * Cache-Control: no-cache deixa o cliente guardar a resposta e revalidar a cada uso; sem ele o
+ * Spring Security mandaria no-store e o cliente nunca enviaria If-None-Match.
+ */
+final class RespostaCondicional {
+
+    private RespostaCondicional() {
+    }
+
+    // Comparação fraca (RFC 9110 para GET): W/"x" e "x" são iguais; "*" bate com qualquer recurso existente
+    static boolean naoModificado(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String esperado = semPrefixoFraco(etag);
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*") || semPrefixoFraco(valor).equals(esperado)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static <T> ResponseEntity<T> respostaNaoModificada(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
+
+    static <T> ResponseEntity<T> ok(String etag, T corpo) {
+        if (etag == null) {
+            return ResponseEntity.ok(corpo);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(corpo);
+    }
+
+    private static String semPrefixoFraco(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -6,11 +6,13 @@ import com.server.coester.services.TipoPecaService;
 import com.server.coester.services.UsuarioService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/tipos-peca")
@@ -34,9 +36,15 @@ public class TipoPecaController {
     }
 
     // READ - Listar todos ordenados por nome (Permitido a todos)
+    // ETag do catálogo inteiro: If-None-Match igual -> 304 sem carregar os tipos
     @GetMapping
-    public List<TipoPecaResponse> listarTiposPeca() {
-        return tipoPecaService.listarTodosOrdenados();
+    public ResponseEntity<List<TipoPecaResponse>> listarTiposPeca(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = tipoPecaService.etagTiposPeca();
+        if (RespostaCondicional.naoModificado(ifNoneMatch, etag)) {
+            return RespostaCondicional.respostaNaoModificada(etag);
+        }
+        return RespostaCondicional.ok(etag, tipoPecaService.listarTodosOrdenados());
     }
 
     // READ - Obter por ID (Permitido a todos)
@@ -49,8 +57,9 @@ public class TipoPecaController {
 
     // READ - Buscar por nome (Permitido a todos)
     @GetMapping("/buscar")
-    public List<TipoPecaResponse> buscarTiposPeca(@RequestParam String nome) {
-        return tipoPecaService.buscarPorNome(nome);
+    public List<TipoPecaResponse> buscarTiposPeca(@RequestParam String nome,
+                                                  @RequestParam(required = false) Integer limite) {
+        return tipoPecaService.buscarPorNome(nome, limite);
     }
 
     // READ - Tipos com lotes (Permitido a todos)
@@ -99,9 +108,14 @@ public class TipoPecaController {
 
     // TEMPLATE DE MEDIÇÃO (Permitido a todos)
     @GetMapping("/{id}/template-medicao")
-    public ResponseEntity<?> getTemplateMedicao(@PathVariable Long id) {
+    public ResponseEntity<?> getTemplateMedicao(@PathVariable Long id,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            return ResponseEntity.ok(tipoPecaService.getTemplateMedicao(id));
+            Optional<String> etag = tipoPecaService.etagTemplateMedicao(id);
+            if (etag.isPresent() && RespostaCondicional.naoModificado(ifNoneMatch, etag.get())) {
+                return RespostaCondicional.respostaNaoModificada(etag.get());
+            }
+            return RespostaCondicional.ok(etag.orElse(null), tipoPecaService.getTemplateMedicao(id));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -0,0 +1,14 @@
+package com.server.coester.dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// Para adicionar várias medições ao lote numa única transação
+public record AdicionarMedicoesLoteRequest(
+        @NotEmpty(message = "Informe ao menos uma medição")
+        @Size(max = 1000, message = "Máximo de 1000 medições por lote de envio")
+        List<@Valid AdicionarMedicaoRequestParameter> medicoes
+) {}
@@ -0,0 +1,14 @@
+package com.server.coester.dtos;
+
+import java.util.List;
+
+// Resposta do envio em lote: contadores atualizados do lote + resumo de cada medição
+public record AdicionarMedicoesLoteResponse(
+        Long loteId,
+        Integer quantidadeAmostras,
+        Integer pecasAprovadas,
+        Integer pecasReprovadas,
+        Double taxaAprovacao,
+        String status,
+        List<MedicaoResumoResponse> medicoes
+) {}
@@ -0,0 +1,7 @@
+package com.server.coester.dtos;
+
+// Erro de uma linha específica do arquivo importado
+public record ErroLinhaImportacao(
+        Integer linha,
+        String mensagem
+) {}
@@ -0,0 +1,30 @@
+package com.server.coester.dtos;
+
+// Estatísticas de processo (SPC) de uma cota do lote.
+// Campos que dependem de tolerância, de desvio padrão > 0 ou de subgrupos completos vêm null quando não se aplicam.
+public record EstatisticaCotaResponse(
+        String cota,
+        String label,
+        String unidade,
+        Double valorPadrao,
+        Double tolerancia,
+        Double limiteInferiorEspecificacao,
+        Double limiteSuperiorEspecificacao,
+        Long amostras,
+        Double media,
+        Double desvioPadrao,
+        Double minimo,
+        Double maximo,
+        Double cp,                       // com o desvio dentro dos subgrupos (null sem subgrupo completo)
+        Double cpk,
+        Double pp,                       // com o desvio padrão de todas as amostras
+        Double ppk,
+        Long subgrupos,
+        Double mediaGeralSubgrupos,      // X-barra-barra (linha central do gráfico X-barra)
+        Double amplitudeMedia,           // R-barra (linha central do gráfico R)
+        Double desvioPadraoDentroSubgrupos, // R-barra / d2
+        Double limiteSuperiorControleMedia,
+        Double limiteInferiorControleMedia,
+        Double limiteSuperiorControleAmplitude,
+        Double limiteInferiorControleAmplitude
+) {}
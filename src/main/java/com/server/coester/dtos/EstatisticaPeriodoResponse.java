@@ -0,0 +1,15 @@
+package com.server.coester.dtos;
+
+import java.time.LocalDateTime;
+
+// Um período (dia ou hora) do rollup de estatísticas
+public record EstatisticaPeriodoResponse(
+        LocalDateTime inicio,
+        Long lotesCriados,
+        Long lotesConcluidos,
+        Long lotesAprovados,
+        Long lotesReprovados,
+        Long pecasMedidas,
+        Long pecasAprovadas,
+        Double taxaAprovacaoMedia
+) {}
@@ -0,0 +1,10 @@
+package com.server.coester.dtos;
+
+import java.util.List;
+
+// Resposta do SPC de um lote: uma entrada por cota do tipo de peça
+public record EstatisticasSpcResponse(
+        Long loteId,
+        Integer tamanhoSubgrupo,
+        List<EstatisticaCotaResponse> cotas
+) {}
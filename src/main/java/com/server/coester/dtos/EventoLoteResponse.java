@@ -0,0 +1,21 @@
+package com.server.coester.dtos;
+
+import java.util.List;
+
+// Evento enviado por SSE aos acompanhamentos de um lote ou do dashboard do usuário.
+// tipo: LOTE_CRIADO, LOTES_CRIADOS, LOTE_ATUALIZADO, MEDICOES_ADICIONADAS, MEDICAO_REMOVIDA, STATUS_ALTERADO,
+// LOTE_RECOMECADO, LOTE_EXCLUIDO. LOTES_CRIADOS (importação) é um evento só por bloco, sem loteId e com loteIds.
+public record EventoLoteResponse(
+        String tipo,
+        Long loteId,
+        String codigoLote,
+        String statusAnterior,
+        String status,
+        Integer quantidadeAmostras,
+        Integer pecasAprovadas,
+        Integer pecasReprovadas,
+        Double taxaAprovacao,
+        List<MedicaoResponse> medicoes,   // Só as medições novas do evento (vazia nos demais tipos)
+        Long medicaoRemovidaId,
+        List<Long> loteIds                // Lotes criados no bloco (LOTES_CRIADOS; vazia nos demais tipos)
+) {}
@@ -0,0 +1,17 @@
+package com.server.coester.dtos;
+
+import java.util.List;
+
+// Resumo da criação de lotes a partir de um arquivo de ordens de produção
+public record ImportacaoLotesResponse(
+        Integer linhasLidas,
+        Integer lotesCriados,
+        Integer blocosGravados,
+        Integer totalErros,
+        List<LoteImportadoResponse> lotes, // um por linha gravada, na ordem do arquivo
+        List<ErroLinhaImportacao> erros, // limitado às primeiras ocorrências
+        // true se a importação parou antes do fim do arquivo; os blocos até ultimaLinhaGravada ficam gravados
+        Boolean interrompida,
+        Integer ultimaLinhaGravada,
+        String motivoInterrupcao
+) {}
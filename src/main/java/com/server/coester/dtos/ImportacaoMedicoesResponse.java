@@ -0,0 +1,19 @@
+package com.server.coester.dtos;
+
+import java.util.List;
+
+// Resumo da importação de um arquivo de medições (CMM / calibrador)
+public record ImportacaoMedicoesResponse(
+        Long loteId,
+        Integer linhasLidas,
+        Integer medicoesImportadas,
+        Integer aprovadas,
+        Integer reprovadas,
+        Integer blocosGravados,
+        Integer totalErros,
+        List<ErroLinhaImportacao> erros, // limitado às primeiras ocorrências
+        // true se a importação parou antes do fim do arquivo; os blocos até ultimaLinhaGravada ficam gravados
+        Boolean interrompida,
+        Integer ultimaLinhaGravada,
+        String motivoInterrupcao
+) {}
@@ -0,0 +1,8 @@
+package com.server.coester.dtos;
+
+// Lote criado a partir de uma linha do arquivo de ordens de produção
+public record LoteImportadoResponse(
+        Integer linha,
+        Long id,
+        String codigoLote
+) {}
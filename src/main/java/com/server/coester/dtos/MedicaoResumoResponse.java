@@ -0,0 +1,8 @@
+package com.server.coester.dtos;
+
+// Resultado compacto de uma medição gravada
+public record MedicaoResumoResponse(
+        Long id,
+        Integer pecaNumero,
+        String status
+) {}
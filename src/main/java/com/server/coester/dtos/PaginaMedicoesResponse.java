@@ -0,0 +1,10 @@
+package com.server.coester.dtos;
+
+import java.util.List;
+
+// Página de medições paginada por cursor (pecaNumero da última medição da página)
+public record PaginaMedicoesResponse(
+        List<MedicaoResponse> medicoes,
+        Integer proximoCursor, // usar como "apos" na próxima chamada; null quando não há mais páginas
+        Boolean temMais
+) {}
@@ -0,0 +1,42 @@
+package com.server.coester.dtos;
+
+import com.server.coester.entities.Usuario;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+// Principal guardado no SecurityContext pelos filtros de autenticação (Basic e Bearer)
+public record UsuarioAutenticado(
+        Long id,
+        String email,
+        String nome,
+        List<String> roles
+) implements AuthenticatedPrincipal {
+
+    public static UsuarioAutenticado de(Usuario usuario) {
+        return new UsuarioAutenticado(
+                usuario.getId(),
+                usuario.getEmail(),
+                usuario.getUsername(),
+                List.copyOf(usuario.getArrayRoles())
+        );
+    }
+
+    // getName() é o que Authentication.getName() devolve: continua sendo o email
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public boolean ehAdministrador() {
+        return roles.contains("ADMINISTRADOR");
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role))
+                .toList();
+    }
+}
@@ -3,7 +3,9 @@ package com.server.coester.dtos;
 import java.util.List;
 
 public record UsuarioLoginResponse(
-        String basicToken,
+        String basicToken, // compatibilidade: clientes antigos ainda usam Basic
         String nome,
-        List<String> roles
+        List<String> roles,
+        String token,      // enviar como "Authorization: Bearer <token>"
+        Long tokenExpiraEmSegundos
 ) {}
@@ -0,0 +1,64 @@
+package com.server.coester.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Estatísticas suficientes de uma cota dentro de um lote, atualizadas a cada medição (SPC).
+// Média e soma dos quadrados dos desvios (m2) seguem a atualização de Welford;
+// os subgrupos consecutivos alimentam os limites X-barra/R.
+@Data
+@Entity
+@Table(name = "estatisticas_cota", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_estatisticas_cota_lote_cota", columnNames = {"lote_id", "cota"})
+})
+public class EstatisticaCota {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "estatisticas_cota_seq")
+    @SequenceGenerator(name = "estatisticas_cota_seq", sequenceName = "estatisticas_cota_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "lote_id", nullable = false)
+    private Lote lote;
+
+    @Column(nullable = false)
+    private String cota;
+
+    // Welford
+    @Column(nullable = false)
+    private Long amostras = 0L;
+
+    @Column(nullable = false)
+    private Double media = 0.0;
+
+    @Column(nullable = false)
+    private Double m2 = 0.0;
+
+    private Double minimo;
+
+    private Double maximo;
+
+    // Subgrupos completos (X-barra/R)
+    @Column(nullable = false)
+    private Long subgrupos = 0L;
+
+    @Column(name = "soma_medias_subgrupos", nullable = false)
+    private Double somaMediasSubgrupos = 0.0;
+
+    @Column(name = "soma_amplitudes_subgrupos", nullable = false)
+    private Double somaAmplitudesSubgrupos = 0.0;
+
+    // Subgrupo em formação
+    @Column(name = "subgrupo_atual_tamanho", nullable = false)
+    private Integer subgrupoAtualTamanho = 0;
+
+    @Column(name = "subgrupo_atual_soma", nullable = false)
+    private Double subgrupoAtualSoma = 0.0;
+
+    @Column(name = "subgrupo_atual_minimo")
+    private Double subgrupoAtualMinimo;
+
+    @Column(name = "subgrupo_atual_maximo")
+    private Double subgrupoAtualMaximo;
+}
@@ -0,0 +1,72 @@
+package com.server.coester.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+// Rollup de estatísticas por período (dia ou hora), consolidado a partir de EstatisticaPeriodoPendente.
+// Uma linha por (granularidade, inicio): a consulta por intervalo lê no máximo uma linha por período.
+@Data
+@Entity
+@Table(name = "estatisticas_periodo", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_estatisticas_periodo_inicio", columnNames = {"granularidade", "inicio"})
+})
+public class EstatisticaPeriodo {
+
+    public enum Granularidade {
+        DIA("day", ChronoUnit.DAYS),
+        HORA("hour", ChronoUnit.HOURS);
+
+        // Unidade do date_trunc do Postgres
+        private final String unidadeSql;
+        private final ChronoUnit unidade;
+
+        Granularidade(String unidadeSql, ChronoUnit unidade) {
+            this.unidadeSql = unidadeSql;
+            this.unidade = unidade;
+        }
+
+        public String getUnidadeSql() {
+            return unidadeSql;
+        }
+
+        public LocalDateTime inicioDoPeriodo(LocalDateTime instante) {
+            return instante.truncatedTo(unidade);
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularidade granularidade;
+
+    @Column(nullable = false)
+    private LocalDateTime inicio;
+
+    @Column(name = "lotes_criados", nullable = false)
+    private Long lotesCriados = 0L;
+
+    @Column(name = "lotes_concluidos", nullable = false)
+    private Long lotesConcluidos = 0L;
+
+    @Column(name = "lotes_aprovados", nullable = false)
+    private Long lotesAprovados = 0L;
+
+    @Column(name = "lotes_reprovados", nullable = false)
+    private Long lotesReprovados = 0L;
+
+    @Column(name = "pecas_medidas", nullable = false)
+    private Long pecasMedidas = 0L;
+
+    @Column(name = "pecas_aprovadas", nullable = false)
+    private Long pecasAprovadas = 0L;
+
+    // Soma das taxas de aprovação dos lotes concluídos no período (média = soma / concluídos)
+    @Column(name = "soma_taxa_aprovacao", nullable = false)
+    private Double somaTaxaAprovacao = 0.0;
+}
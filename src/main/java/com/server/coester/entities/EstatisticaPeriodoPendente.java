@@ -0,0 +1,44 @@
+package com.server.coester.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Delta do rollup EstatisticaPeriodo ainda não consolidado, uma linha por evento (criar, medir, concluir...).
+// Só INSERT: as transações de escrita não disputam as linhas de estatisticas_periodo, que são consolidadas
+// depois (EstatisticaPeriodoService.consolidar). inicio é a hora do evento; o dia é derivado na consolidação.
+@Data
+@Entity
+@Table(name = "estatisticas_periodo_pendentes")
+public class EstatisticaPeriodoPendente {
+
+    // IDENTITY: as linhas são gravadas só por INSERT nativo, sem batch do Hibernate
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDateTime inicio;
+
+    @Column(name = "lotes_criados", nullable = false)
+    private Long lotesCriados = 0L;
+
+    @Column(name = "lotes_concluidos", nullable = false)
+    private Long lotesConcluidos = 0L;
+
+    @Column(name = "lotes_aprovados", nullable = false)
+    private Long lotesAprovados = 0L;
+
+    @Column(name = "lotes_reprovados", nullable = false)
+    private Long lotesReprovados = 0L;
+
+    @Column(name = "pecas_medidas", nullable = false)
+    private Long pecasMedidas = 0L;
+
+    @Column(name = "pecas_aprovadas", nullable = false)
+    private Long pecasAprovadas = 0L;
+
+    @Column(name = "soma_taxa_aprovacao", nullable = false)
+    private Double somaTaxaAprovacao = 0.0;
+}
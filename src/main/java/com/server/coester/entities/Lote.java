@@ -6,13 +6,21 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "lotes")
+@Table(name = "lotes", indexes = {
+        @Index(name = "idx_lotes_usuario_data", columnList = "usuario_id, data_criacao")
+})
 public class Lote {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lotes_seq")
+    @SequenceGenerator(name = "lotes_seq", sequenceName = "lotes_seq", allocationSize = 50)
     private Long id;
 
+    // Incrementada pelo Hibernate a cada UPDATE (toda medição altera os contadores do lote): base do ETag
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long versao;
+
     @Column(nullable = false, unique = true)
     private String codigoLote;
 
@@ -45,6 +53,12 @@ public class Lote {
     @Column(nullable = false)
     private Double taxaAprovacao;
 
+    // Último pecaNumero reservado (alterado só com o lote bloqueado). NULL em lotes anteriores ao contador.
+    @Column(name = "ultimo_peca_numero")
+    private Integer ultimoPecaNumero;
+
+    // LEGADO: as medições agora ficam na tabela "medicoes" (entidade Medicao).
+    // Mantido apenas para a migração dos lotes antigos (MigracaoMedicoesService).
     @Column(name = "medicoes_json", columnDefinition = "TEXT")
     private String medicoesJson;
 
@@ -56,6 +70,11 @@ public class Lote {
 
     private LocalDateTime dataConclusao;
 
+    // Taxa contabilizada no rollup por período ao concluir. Medições em lote já concluído mudam taxaAprovacao,
+    // então reabrir/recomeçar/excluir desconta este valor. NULL em lotes concluídos antes da coluna.
+    @Column(name = "taxa_aprovacao_conclusao")
+    private Double taxaAprovacaoConclusao;
+
     @Column(length = 1000)
     private String observacoes;
 
@@ -70,8 +89,8 @@ public class Lote {
         this.pecasReprovadas = 0;
         this.taxaAprovacao = 0.0;
         this.quantidadeAmostras = 0;
+        this.ultimoPecaNumero = 0;
         this.porcentagemAmostragem = 0.0;
-        this.medicoesJson = "[]";
     }
 
     // REMOVA estes métodos - a lógica fica no Service
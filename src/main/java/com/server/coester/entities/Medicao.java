@@ -0,0 +1,52 @@
+package com.server.coester.entities;
+
+import io.hypersistence.utils.hibernate.type.json.JsonType;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Type;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Entity
+@Table(name = "medicoes",
+        uniqueConstraints = @UniqueConstraint(name = "uk_medicoes_lote_peca", columnNames = {"lote_id", "peca_numero"}),
+        indexes = @Index(name = "idx_medicoes_lote_status_peca", columnList = "lote_id, status, peca_numero"))
+public class Medicao {
+
+    @Id
+    // Sequência em blocos de 50 (ajustada no início pelo SequenciasIdInitializer): sem IDENTITY o
+    // INSERT não precisa devolver o id e o saveAll das medições vai em batch
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medicoes_seq")
+    @SequenceGenerator(name = "medicoes_seq", sequenceName = "medicoes_seq", allocationSize = 50)
+    private Long id;
+
+    // Cada medição é uma linha própria: adicionar uma leitura não reescreve o lote inteiro
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "lote_id", nullable = false)
+    private Lote lote;
+
+    @Column(name = "peca_numero", nullable = false)
+    private Integer pecaNumero;
+
+    @Column(nullable = false)
+    private LocalDateTime data;
+
+    // {"comprimento": 50.02, "diametro": 24.98}
+    // jsonb com índice GIN (jsonb_path_ops): consultas por conteúdo usam @> (ver CustomLoteRepositoryImpl)
+    @Type(JsonType.class)
+    @Column(columnDefinition = "jsonb")
+    private Map<String, Double> dimensoes = new HashMap<>();
+
+    @Column(nullable = false)
+    private String status; // "APROVADO", "REPROVADO"
+
+    @Column(length = 1000)
+    private String observacoes;
+
+    public Medicao() {
+        this.data = LocalDateTime.now();
+    }
+}
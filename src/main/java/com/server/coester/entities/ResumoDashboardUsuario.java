@@ -0,0 +1,52 @@
+package com.server.coester.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Resumo do dashboard por usuário, mantido incrementalmente pelo LoteService (leitura O(1))
+@Data
+@Entity
+@Table(name = "resumo_dashboard_usuario")
+public class ResumoDashboardUsuario {
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    @Column(name = "total_lotes", nullable = false)
+    private Long totalLotes = 0L;
+
+    @Column(name = "lotes_em_andamento", nullable = false)
+    private Long lotesEmAndamento = 0L;
+
+    @Column(name = "lotes_prontos_para_conclusao", nullable = false)
+    private Long lotesProntosParaConclusao = 0L;
+
+    @Column(name = "lotes_aprovados", nullable = false)
+    private Long lotesAprovados = 0L;
+
+    @Column(name = "lotes_reprovados", nullable = false)
+    private Long lotesReprovados = 0L;
+
+    // Soma das taxas de aprovação dos lotes concluídos (média = soma / concluídos)
+    @Column(name = "soma_taxa_aprovacao_concluidos", nullable = false)
+    private Double somaTaxaAprovacaoConcluidos = 0.0;
+
+    // Ids dos lotes mais recentes, do mais novo para o mais antigo
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "lotes_recentes_ids", columnDefinition = "bigint[]")
+    private List<Long> lotesRecentesIds = new ArrayList<>();
+
+    @Column(name = "data_atualizacao")
+    private LocalDateTime dataAtualizacao;
+
+    public Long getLotesConcluidos() {
+        return lotesAprovados + lotesReprovados;
+    }
+}
@@ -9,9 +9,14 @@ import lombok.Data;
 public class TipoPeca {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tipos_peca_seq")
+    @SequenceGenerator(name = "tipos_peca_seq", sequenceName = "tipos_peca_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long versao;
+
     @Column(nullable = false, unique = false)
     private String nome; // "Parafuso M8", "Engrenagem 80mm"
 
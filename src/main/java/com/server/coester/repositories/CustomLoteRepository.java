@@ -0,0 +1,22 @@
+package com.server.coester.repositories;
+
+import com.server.coester.entities.Lote;
+
+import java.util.List;
+import java.util.Map;
+
+// Repository customizado para consultas sobre o conteúdo das medições (tabela medicoes)
+public interface CustomLoteRepository {
+
+    // Buscar lotes onde alguma medição tenha observação específica
+    List<Lote> findLotesComMedicaoObservacao(String observacao);
+
+    // Buscar lotes com medições reprovadas
+    List<Lote> findLotesComMedicoesReprovadas();
+
+    // Buscar lotes com alguma medição contendo exatamente estes valores ({"diametro": 25.0})
+    List<Lote> findLotesComMedicaoDimensoes(Map<String, Double> dimensoes);
+
+    // Calcular estatísticas detalhadas das medições de um lote
+    Map<String, Object> getEstatisticasDetalhadasMedicoes(Long loteId);
+}
@@ -0,0 +1,100 @@
+package com.server.coester.repositories;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.coester.entities.Lote;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Implementação do repository customizado (fragmento do LoteRepository).
+// As consultas vão na tabela medicoes, com os índices criados pelo IndicesBuscaInitializer:
+// GIN jsonb_path_ops em dimensoes (operador @>) e GIN trigram em lower(observacoes).
+public class CustomLoteRepositoryImpl implements CustomLoteRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public List<Lote> findLotesComMedicaoObservacao(String observacao) {
+        String queryStr = "SELECT l.* FROM lotes l " +
+                "WHERE l.id IN (SELECT m.lote_id FROM medicoes m " +
+                "WHERE lower(m.observacoes) LIKE '%' || lower(:observacao) || '%')";
+
+        return entityManager.createNativeQuery(queryStr, Lote.class)
+                .setParameter("observacao", escaparLike(observacao))
+                .getResultList();
+    }
+
+    // '%' e '_' digitados pelo usuário são literais (o escape padrão do LIKE no Postgres é '\')
+    private static String escaparLike(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        StringBuilder escapado = new StringBuilder(texto.length() + 2);
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') {
+                escapado.append('\\');
+            }
+            escapado.append(c);
+        }
+        return escapado.toString();
+    }
+
+    @Override
+    public List<Lote> findLotesComMedicoesReprovadas() {
+        // Sonda o índice (lote_id, status, peca_numero) de medicoes por lote
+        String queryStr = "SELECT l.* FROM lotes l " +
+                "WHERE EXISTS (SELECT 1 FROM medicoes m WHERE m.lote_id = l.id AND m.status = 'REPROVADO')";
+
+        return entityManager.createNativeQuery(queryStr, Lote.class)
+                .getResultList();
+    }
+
+    @Override
+    public List<Lote> findLotesComMedicaoDimensoes(Map<String, Double> dimensoes) {
+        String filtro;
+        try {
+            filtro = objectMapper.writeValueAsString(dimensoes);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Filtro de dimensões inválido", e);
+        }
+
+        String queryStr = "SELECT l.* FROM lotes l " +
+                "WHERE l.id IN (SELECT m.lote_id FROM medicoes m " +
+                "WHERE m.dimensoes @> CAST(:filtro AS jsonb))";
+
+        return entityManager.createNativeQuery(queryStr, Lote.class)
+                .setParameter("filtro", filtro)
+                .getResultList();
+    }
+
+    @Override
+    public Map<String, Object> getEstatisticasDetalhadasMedicoes(Long loteId) {
+        // Contagem pelo índice (lote_id, status): não lê o conteúdo das medições
+        String queryStr = "SELECT " +
+                "COUNT(*) as total_medicoes, " +
+                "COUNT(*) FILTER (WHERE status = 'APROVADO') as aprovadas, " +
+                "COUNT(*) FILTER (WHERE status = 'REPROVADO') as reprovadas " +
+                "FROM medicoes WHERE lote_id = :loteId";
+
+        Object[] result = (Object[]) entityManager.createNativeQuery(queryStr)
+                .setParameter("loteId", loteId)
+                .getSingleResult();
+
+        Map<String, Object> estatisticas = new HashMap<>();
+        estatisticas.put("totalMedicoes", result[0]);
+        estatisticas.put("aprovadas", result[1]);
+        estatisticas.put("reprovadas", result[2]);
+
+        return estatisticas;
+    }
+}
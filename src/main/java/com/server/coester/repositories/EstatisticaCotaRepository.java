@@ -0,0 +1,21 @@
+package com.server.coester.repositories;
+
+import com.server.coester.entities.EstatisticaCota;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface EstatisticaCotaRepository extends JpaRepository<EstatisticaCota, Long> {
+
+    // Uma linha por cota do lote: a leitura do SPC é O(cotas)
+    List<EstatisticaCota> findByLoteId(Long loteId);
+
+    boolean existsByLoteId(Long loteId);
+
+    @Modifying
+    @Query("DELETE FROM EstatisticaCota e WHERE e.lote.id = :loteId")
+    int deleteByLoteId(@Param("loteId") Long loteId);
+}
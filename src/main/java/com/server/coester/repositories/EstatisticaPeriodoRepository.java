@@ -0,0 +1,135 @@
+package com.server.coester.repositories;
+
+import com.server.coester.entities.EstatisticaPeriodo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Os eventos entram como linhas novas em estatisticas_periodo_pendentes (só INSERT, sem disputa entre transações).
+// A consolidação move os pendentes para o rollup com upserts atômicos (coluna = coluna + EXCLUDED.coluna)
+// sobre a chave (granularidade, inicio).
+public interface EstatisticaPeriodoRepository extends JpaRepository<EstatisticaPeriodo, Long> {
+
+    String COLUNAS = """
+        (granularidade, inicio, lotes_criados, lotes_concluidos, lotes_aprovados, lotes_reprovados,
+         pecas_medidas, pecas_aprovadas, soma_taxa_aprovacao)
+        """;
+
+    String COLUNAS_PENDENTES = """
+        (inicio, lotes_criados, lotes_concluidos, lotes_aprovados, lotes_reprovados,
+         pecas_medidas, pecas_aprovadas, soma_taxa_aprovacao)
+        """;
+
+    String SOMAR_NO_CONFLITO = """
+        ON CONFLICT (granularidade, inicio) DO UPDATE SET
+            lotes_criados = estatisticas_periodo.lotes_criados + EXCLUDED.lotes_criados,
+            lotes_concluidos = estatisticas_periodo.lotes_concluidos + EXCLUDED.lotes_concluidos,
+            lotes_aprovados = estatisticas_periodo.lotes_aprovados + EXCLUDED.lotes_aprovados,
+            lotes_reprovados = estatisticas_periodo.lotes_reprovados + EXCLUDED.lotes_reprovados,
+            pecas_medidas = estatisticas_periodo.pecas_medidas + EXCLUDED.pecas_medidas,
+            pecas_aprovadas = estatisticas_periodo.pecas_aprovadas + EXCLUDED.pecas_aprovadas,
+            soma_taxa_aprovacao = estatisticas_periodo.soma_taxa_aprovacao + EXCLUDED.soma_taxa_aprovacao
+        """;
+
+    // Range scan no índice único (granularidade, inicio)
+    List<EstatisticaPeriodo> findByGranularidadeAndInicioBetweenOrderByInicioAsc(
+            EstatisticaPeriodo.Granularidade granularidade, LocalDateTime inicio, LocalDateTime fim);
+
+    // Um evento: uma linha pendente na hora em que aconteceu
+    @Modifying
+    @Query(value = "INSERT INTO estatisticas_periodo_pendentes " + COLUNAS_PENDENTES + """
+        VALUES (date_trunc('hour', CAST(:instante AS timestamp)), :lotesCriados, :lotesConcluidos, :lotesAprovados,
+                :lotesReprovados, :pecasMedidas, :pecasAprovadas, :somaTaxa)
+        """, nativeQuery = true)
+    int registrar(@Param("instante") LocalDateTime instante,
+                  @Param("lotesCriados") long lotesCriados,
+                  @Param("lotesConcluidos") long lotesConcluidos,
+                  @Param("lotesAprovados") long lotesAprovados,
+                  @Param("lotesReprovados") long lotesReprovados,
+                  @Param("pecasMedidas") long pecasMedidas,
+                  @Param("pecasAprovadas") long pecasAprovadas,
+                  @Param("somaTaxa") double somaTaxa);
+
+    // Desconta as medições de um lote (recomeçar), cada uma na hora em que foi gravada.
+    // Deve rodar antes do DELETE das medições.
+    @Modifying
+    @Query(value = "INSERT INTO estatisticas_periodo_pendentes " + COLUNAS_PENDENTES + """
+        SELECT date_trunc('hour', m.data), 0, 0, 0, 0,
+               -COUNT(*), -COUNT(*) FILTER (WHERE m.status = 'APROVADO'), 0
+        FROM medicoes m
+        WHERE m.lote_id = :loteId
+        GROUP BY 1
+        """, nativeQuery = true)
+    int descontarMedicoesDoLote(@Param("loteId") Long loteId);
+
+    // Move todos os pendentes para o rollup numa única instrução: apaga, agrega por hora e por dia e soma.
+    // ORDER BY: as linhas do rollup são travadas sempre na mesma ordem
+    @Modifying
+    @Query(value = """
+        WITH movidos AS (
+            DELETE FROM estatisticas_periodo_pendentes RETURNING *
+        ), agregados AS (
+            SELECT 'HORA' AS granularidade, date_trunc('hour', inicio) AS inicio, lotes_criados, lotes_concluidos,
+                   lotes_aprovados, lotes_reprovados, pecas_medidas, pecas_aprovadas, soma_taxa_aprovacao
+            FROM movidos
+            UNION ALL
+            SELECT 'DIA', date_trunc('day', inicio), lotes_criados, lotes_concluidos,
+                   lotes_aprovados, lotes_reprovados, pecas_medidas, pecas_aprovadas, soma_taxa_aprovacao
+            FROM movidos
+        )
+        INSERT INTO estatisticas_periodo """ + COLUNAS + """
+        SELECT granularidade, inicio, SUM(lotes_criados), SUM(lotes_concluidos), SUM(lotes_aprovados),
+               SUM(lotes_reprovados), SUM(pecas_medidas), SUM(pecas_aprovadas), SUM(soma_taxa_aprovacao)
+        FROM agregados
+        GROUP BY granularidade, inicio
+        ORDER BY granularidade, inicio
+        """ + SOMAR_NO_CONFLITO, nativeQuery = true)
+    int consolidarPendentes();
+
+    // Pendentes já refletidos no histórico (reconstrução)
+    @Modifying
+    @Query(value = "DELETE FROM estatisticas_periodo_pendentes", nativeQuery = true)
+    int descartarPendentes();
+
+    // RECONSTRUÇÃO A PARTIR DO HISTÓRICO (tabela vazia na primeira subida)
+
+    @Modifying
+    @Query(value = "INSERT INTO estatisticas_periodo " + COLUNAS + """
+        SELECT :granularidade, date_trunc(:unidade, l.data_criacao), COUNT(*), 0, 0, 0, 0, 0, 0
+        FROM lotes l
+        WHERE l.data_criacao IS NOT NULL
+        GROUP BY 2
+        """ + SOMAR_NO_CONFLITO, nativeQuery = true)
+    int reconstruirLotesCriados(@Param("granularidade") String granularidade,
+                                @Param("unidade") String unidade);
+
+    @Modifying
+    @Query(value = "INSERT INTO estatisticas_periodo " + COLUNAS + """
+        SELECT :granularidade, date_trunc(:unidade, l.data_conclusao), 0,
+               COUNT(*),
+               COUNT(*) FILTER (WHERE l.status = 'APROVADO'),
+               COUNT(*) FILTER (WHERE l.status = 'REPROVADO'),
+               0, 0,
+               COALESCE(SUM(COALESCE(l.taxa_aprovacao_conclusao, l.taxa_aprovacao)), 0)
+        FROM lotes l
+        WHERE l.data_conclusao IS NOT NULL AND l.status IN ('APROVADO', 'REPROVADO')
+        GROUP BY 2
+        """ + SOMAR_NO_CONFLITO, nativeQuery = true)
+    int reconstruirLotesConcluidos(@Param("granularidade") String granularidade,
+                                   @Param("unidade") String unidade);
+
+    @Modifying
+    @Query(value = "INSERT INTO estatisticas_periodo " + COLUNAS + """
+        SELECT :granularidade, date_trunc(:unidade, m.data), 0, 0, 0, 0,
+               COUNT(*), COUNT(*) FILTER (WHERE m.status = 'APROVADO'), 0
+        FROM medicoes m
+        WHERE m.data IS NOT NULL
+        GROUP BY 2
+        """ + SOMAR_NO_CONFLITO, nativeQuery = true)
+    int reconstruirMedicoes(@Param("granularidade") String granularidade,
+                            @Param("unidade") String unidade);
+}
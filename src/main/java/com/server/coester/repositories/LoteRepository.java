@@ -2,20 +2,28 @@ package com.server.coester.repositories;
 
 import com.server.coester.entities.Lote;
 import com.server.coester.entities.Usuario;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
-import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
-public interface LoteRepository extends JpaRepository<Lote, Long> {
+public interface LoteRepository extends JpaRepository<Lote, Long>, CustomLoteRepository {
+
+    // ETag de GET /api/lotes/{id}: "versão do lote-versão do tipo de peça", sem carregar as entidades
+    @Query("SELECT CONCAT(CAST(l.versao AS String), '-', CAST(t.versao AS String)) "
+            + "FROM Lote l JOIN l.tipoPeca t WHERE l.id = :id")
+    Optional<String> findVersoes(@Param("id") Long id);
+
+    // Carrega o lote com SELECT ... FOR UPDATE: usado por toda escrita que altera contadores/medições do lote
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Lote l WHERE l.id = :id")
+    Optional<Lote> findByIdParaAtualizacao(@Param("id") Long id);
 
     // Buscar por código do lote
     Optional<Lote> findByCodigoLote(String codigoLote);
@@ -70,68 +78,59 @@ public interface LoteRepository extends JpaRepository<Lote, Long> {
         """) // Remova a linha "GROUP BY l.usuario"
     List<Object[]> getDashboardEstatisticasByUsuario(@Param("usuario") Usuario usuario);
 
-    // 3. Lotes recentes por usuário
-    List<Lote> findLotesRecentesByUsuario(Usuario usuario);
+    // LISTAGENS COM JOIN FETCH: o tipoPeca (LAZY) vem na mesma consulta, sem um SELECT extra por lote
+    @Query("SELECT l FROM Lote l JOIN FETCH l.tipoPeca")
+    List<Lote> findAllComTipoPeca();
 
-}
+    @Query("SELECT l FROM Lote l JOIN FETCH l.tipoPeca WHERE l.usuario.id = :usuarioId")
+    List<Lote> findByUsuarioIdComTipoPeca(@Param("usuarioId") Long usuarioId);
 
-// Repository customizado para consultas com JSON
-interface CustomLoteRepository {
+    @Query("SELECT l FROM Lote l JOIN FETCH l.tipoPeca WHERE l.id IN :ids")
+    List<Lote> findByIdInComTipoPeca(@Param("ids") Collection<Long> ids);
 
-    // Buscar lotes onde alguma medição tenha observação específica
-    List<Lote> findLotesComMedicaoObservacao(String observacao);
+    @Query("SELECT l FROM Lote l JOIN FETCH l.tipoPeca WHERE l.status = :status")
+    List<Lote> findByStatusComTipoPeca(@Param("status") String status);
 
-    // Buscar lotes com medições reprovadas
-    List<Lote> findLotesComMedicoesReprovadas();
+    @Query("SELECT l FROM Lote l JOIN FETCH l.tipoPeca WHERE LOWER(l.descricao) LIKE LOWER(CONCAT('%', :texto, '%'))")
+    List<Lote> findByDescricaoComTipoPeca(@Param("texto") String texto);
 
-    // Calcular estatísticas detalhadas das medições de um lote
-    Map<String, Object> getEstatisticasDetalhadasMedicoes(Long loteId);
-}
+    // BUSCA TEXTUAL (índices criados pelo IndicesBuscaInitializer). Devolvem só ids, já ranqueados.
 
-// Implementação do repository customizado
-@Repository
-class CustomLoteRepositoryImpl implements CustomLoteRepository {
-
-    @PersistenceContext
-    private EntityManager entityManager;
-
-    @Override
-    public List<Lote> findLotesComMedicaoObservacao(String observacao) {
-        String queryStr = "SELECT l.* FROM lotes l " +
-                "WHERE l.medicoes_json::text LIKE '%' || :observacao || '%'";
-
-        return entityManager.createNativeQuery(queryStr, Lote.class)
-                .setParameter("observacao", observacao)
-                .getResultList();
-    }
-
-    @Override
-    public List<Lote> findLotesComMedicoesReprovadas() {
-        String queryStr = "SELECT l.* FROM lotes l " +
-                "WHERE l.medicoes_json::text LIKE '%\"status\":\"REPROVADO\"%'";
-
-        return entityManager.createNativeQuery(queryStr, Lote.class)
-                .getResultList();
-    }
-
-    @Override
-    public Map<String, Object> getEstatisticasDetalhadasMedicoes(Long loteId) {
-        // Consulta complexa para analisar o JSON de medições
-        String queryStr = "SELECT " +
-                "jsonb_array_length(medicoes_json) as total_medicoes, " +
-                "COUNT(*) FILTER (WHERE medicoes_json @> '[{\"status\":\"APROVADO\"}]') as aprovadas, " +
-                "COUNT(*) FILTER (WHERE medicoes_json @> '[{\"status\":\"REPROVADO\"}]') as reprovadas " +
-                "FROM lotes WHERE id = :loteId";
-
-        Object[] result = (Object[]) entityManager.createNativeQuery(queryStr)
-                .setParameter("loteId", loteId)
-                .getSingleResult();
-
-        Map<String, Object> estatisticas = new HashMap<>();
-        estatisticas.put("totalMedicoes", result[0]);
-        estatisticas.put("aprovadas", result[1]);
-        estatisticas.put("reprovadas", result[2]);
-
-        return estatisticas;
-    }
-}
\ No newline at end of file
+    // 1ª fase: descrições que começam pelo termo. :prefixo já vem com o '%' final.
+    // COLLATE "C" igual ao índice (lower(descricao) COLLATE "C", id): o LIKE vira faixa e o ORDER BY sai do índice
+    @Query(value = """
+        SELECT l.id FROM lotes l
+        WHERE lower(l.descricao) COLLATE "C" LIKE :prefixo
+        ORDER BY lower(l.descricao) COLLATE "C", l.id
+        LIMIT :limite
+        """, nativeQuery = true)
+    List<Long> buscarIdsPorPrefixoDescricao(@Param("prefixo") String prefixo, @Param("limite") int limite);
+
+    // 2ª fase: o termo em qualquer posição (LIKE '%termo%'), sem repetir os da 1ª fase.
+    // Ordenada pela distância ao termo (<<->), que o mesmo índice GiST trigram devolve já em ordem
+    @Query(value = """
+        SELECT l.id FROM lotes l
+        WHERE lower(l.descricao) LIKE :trecho AND lower(l.descricao) NOT LIKE :prefixo
+        ORDER BY :termo <<-> lower(l.descricao), l.id
+        LIMIT :limite
+        """, nativeQuery = true)
+    List<Long> buscarIdsPorTrechoDescricao(@Param("termo") String termo, @Param("trecho") String trecho,
+                                           @Param("prefixo") String prefixo, @Param("limite") int limite);
+
+    // 3ª fase: similaridade por palavra (pg_trgm), em ordem de distância direto do índice GiST
+    @Query(value = """
+        SELECT l.id FROM lotes l
+        WHERE :termo <% lower(l.descricao)
+        ORDER BY :termo <<-> lower(l.descricao), l.id
+        LIMIT :limite
+        """, nativeQuery = true)
+    List<Long> buscarIdsPorSimilaridadeDescricao(@Param("termo") String termo, @Param("limite") int limite);
+
+    // Lotes que ainda guardam medições no campo legado medicoes_json
+    @Query("SELECT l.id FROM Lote l WHERE l.medicoesJson IS NOT NULL AND l.medicoesJson <> '[]'")
+    List<Long> findIdsComMedicoesJsonLegado();
+
+    // 3. Lotes recentes por usuário
+    List<Lote> findLotesRecentesByUsuario(Usuario usuario);
+
+}
@@ -0,0 +1,40 @@
+package com.server.coester.repositories;
+
+import com.server.coester.entities.Medicao;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface MedicaoRepository extends JpaRepository<Medicao, Long> {
+
+    // Medições de um lote na ordem em que as peças foram medidas
+    List<Medicao> findByLoteIdOrderByPecaNumeroAsc(Long loteId);
+
+    // Paginação por cursor (keyset): próxima página a partir do último pecaNumero já entregue
+    List<Medicao> findByLoteIdAndPecaNumeroGreaterThanOrderByPecaNumeroAsc(Long loteId, Integer pecaNumero, Limit limit);
+
+    List<Medicao> findByLoteIdAndStatusAndPecaNumeroGreaterThanOrderByPecaNumeroAsc(Long loteId, String status,
+                                                                                   Integer pecaNumero, Limit limit);
+
+    // Buscar medição garantindo que pertence ao lote informado
+    Optional<Medicao> findByIdAndLoteId(Long id, Long loteId);
+
+    boolean existsByLoteId(Long loteId);
+
+    long countByLoteId(Long loteId);
+
+    long countByLoteIdAndStatus(Long loteId, String status);
+
+    // Maior número de peça já usado no lote (0 se não houver medições)
+    @Query("SELECT COALESCE(MAX(m.pecaNumero), 0) FROM Medicao m WHERE m.lote.id = :loteId")
+    Integer findMaxPecaNumeroByLoteId(@Param("loteId") Long loteId);
+
+    @Modifying
+    @Query("DELETE FROM Medicao m WHERE m.lote.id = :loteId")
+    int deleteByLoteId(@Param("loteId") Long loteId);
+}
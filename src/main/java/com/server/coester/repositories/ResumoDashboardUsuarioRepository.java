@@ -0,0 +1,83 @@
+package com.server.coester.repositories;
+
+import com.server.coester.entities.ResumoDashboardUsuario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+// Todas as escritas são UPDATEs atômicos (coluna = coluna + delta): não há leitura-modificação-escrita
+public interface ResumoDashboardUsuarioRepository extends JpaRepository<ResumoDashboardUsuario, Long> {
+
+    // Cria o resumo a partir do histórico de lotes do usuário (primeiro acesso). Idempotente.
+    @Modifying
+    @Query(value = """
+        INSERT INTO resumo_dashboard_usuario (usuario_id, total_lotes, lotes_em_andamento,
+            lotes_prontos_para_conclusao, lotes_aprovados, lotes_reprovados,
+            soma_taxa_aprovacao_concluidos, lotes_recentes_ids, data_atualizacao)
+        SELECT :usuarioId,
+            COUNT(l.id),
+            COUNT(l.id) FILTER (WHERE l.status = 'EM_ANDAMENTO'),
+            COUNT(l.id) FILTER (WHERE l.status = 'PRONTO_PARA_CONCLUSAO'),
+            COUNT(l.id) FILTER (WHERE l.status = 'APROVADO'),
+            COUNT(l.id) FILTER (WHERE l.status = 'REPROVADO'),
+            COALESCE(SUM(l.taxa_aprovacao) FILTER (WHERE l.status IN ('APROVADO', 'REPROVADO')), 0),
+            ARRAY(SELECT r.id FROM lotes r WHERE r.usuario_id = :usuarioId
+                  ORDER BY r.data_criacao DESC LIMIT :quantidadeRecentes),
+            now()
+        FROM lotes l
+        WHERE l.usuario_id = :usuarioId
+        ON CONFLICT (usuario_id) DO NOTHING
+        """, nativeQuery = true)
+    int criarAPartirDoHistorico(@Param("usuarioId") Long usuarioId,
+                                @Param("quantidadeRecentes") int quantidadeRecentes);
+
+    @Modifying
+    @Query(value = """
+        UPDATE resumo_dashboard_usuario SET
+            total_lotes = total_lotes + :total,
+            lotes_em_andamento = lotes_em_andamento + :emAndamento,
+            lotes_prontos_para_conclusao = lotes_prontos_para_conclusao + :prontos,
+            lotes_aprovados = lotes_aprovados + :aprovados,
+            lotes_reprovados = lotes_reprovados + :reprovados,
+            soma_taxa_aprovacao_concluidos = soma_taxa_aprovacao_concluidos + :somaTaxa,
+            data_atualizacao = now()
+        WHERE usuario_id = :usuarioId
+        """, nativeQuery = true)
+    int aplicarDelta(@Param("usuarioId") Long usuarioId,
+                     @Param("total") long total,
+                     @Param("emAndamento") long emAndamento,
+                     @Param("prontos") long prontos,
+                     @Param("aprovados") long aprovados,
+                     @Param("reprovados") long reprovados,
+                     @Param("somaTaxa") double somaTaxa);
+
+    // Coloca o lote novo no início da lista de recentes, mantendo no máximo N ids
+    @Modifying
+    @Query(value = """
+        UPDATE resumo_dashboard_usuario
+        SET lotes_recentes_ids = ARRAY(
+            SELECT t.id
+            FROM unnest(ARRAY[CAST(:loteId AS bigint)] || COALESCE(lotes_recentes_ids, CAST('{}' AS bigint[])))
+                 WITH ORDINALITY AS t(id, posicao)
+            ORDER BY t.posicao
+            LIMIT :quantidadeRecentes)
+        WHERE usuario_id = :usuarioId
+        """, nativeQuery = true)
+    int adicionarLoteRecente(@Param("usuarioId") Long usuarioId,
+                             @Param("loteId") Long loteId,
+                             @Param("quantidadeRecentes") int quantidadeRecentes);
+
+    // Após excluir um lote: refaz a lista com os N mais recentes restantes (consulta indexada com LIMIT)
+    @Modifying
+    @Query(value = """
+        UPDATE resumo_dashboard_usuario
+        SET lotes_recentes_ids = ARRAY(SELECT l.id FROM lotes l
+                                       WHERE l.usuario_id = :usuarioId AND l.id <> :loteExcluidoId
+                                       ORDER BY l.data_criacao DESC LIMIT :quantidadeRecentes)
+        WHERE usuario_id = :usuarioId
+        """, nativeQuery = true)
+    int recalcularLotesRecentes(@Param("usuarioId") Long usuarioId,
+                                @Param("loteExcluidoId") Long loteExcluidoId,
+                                @Param("quantidadeRecentes") int quantidadeRecentes);
+}
@@ -13,6 +13,42 @@ public interface TipoPecaRepository extends JpaRepository<TipoPeca, Long> {
     boolean existsByNome(String nome);
     List<TipoPeca> findByNomeContainingIgnoreCase(String nome);
 
+    // ETag da listagem: muda ao criar, excluir (quantidade e soma dos ids) ou alterar (soma das versões) qualquer tipo
+    @Query("SELECT CONCAT(CAST(COUNT(t) AS String), '-', CAST(COALESCE(SUM(t.id), 0) AS String), '-', "
+            + "CAST(COALESCE(SUM(t.versao), 0) AS String)) FROM TipoPeca t")
+    String findVersaoCatalogo();
+
+    @Query("SELECT t.versao FROM TipoPeca t WHERE t.id = :id")
+    Optional<Long> findVersaoById(@Param("id") Long id);
+
+    // BUSCA TEXTUAL (índices criados pelo IndicesBuscaInitializer): prefixo, trecho e por fim similaridade
+    // Prefixo em COLLATE "C", como o índice (lower(nome) COLLATE "C", id): faixa no índice e sem sort
+    @Query(value = """
+        SELECT tp.* FROM tipos_peca tp
+        WHERE lower(tp.nome) COLLATE "C" LIKE :prefixo
+        ORDER BY lower(tp.nome) COLLATE "C", tp.id
+        LIMIT :limite
+        """, nativeQuery = true)
+    List<TipoPeca> buscarPorPrefixoNome(@Param("prefixo") String prefixo, @Param("limite") int limite);
+
+    // Trecho ordenado pela distância ao termo (<<->), direto do índice GiST trigram
+    @Query(value = """
+        SELECT tp.* FROM tipos_peca tp
+        WHERE lower(tp.nome) LIKE :trecho AND lower(tp.nome) NOT LIKE :prefixo
+        ORDER BY :termo <<-> lower(tp.nome), tp.id
+        LIMIT :limite
+        """, nativeQuery = true)
+    List<TipoPeca> buscarPorTrechoNome(@Param("termo") String termo, @Param("trecho") String trecho,
+                                       @Param("prefixo") String prefixo, @Param("limite") int limite);
+
+    @Query(value = """
+        SELECT tp.* FROM tipos_peca tp
+        WHERE :termo <% lower(tp.nome)
+        ORDER BY :termo <<-> lower(tp.nome), tp.id
+        LIMIT :limite
+        """, nativeQuery = true)
+    List<TipoPeca> buscarPorSimilaridadeNome(@Param("termo") String termo, @Param("limite") int limite);
+
     @Query("SELECT tp FROM TipoPeca tp WHERE tp.id IN " +
             "(SELECT DISTINCT l.tipoPeca.id FROM Lote l)")
     List<TipoPeca> findTiposComLotes();
@@ -0,0 +1,122 @@
+package com.server.coester.services;
+
+import com.server.coester.dtos.CotaMetadata;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Versão "compilada" das cotas de um TipoPeca, usada para classificar medições.
+ * Os nomes das cotas viram índices de array e os limites ficam em doubles primitivos,
+ * então {@link #avaliar(Map)} não aloca nada nem passa pelo Jackson.
+ * Instâncias são imutáveis e podem ser compartilhadas entre threads.
+ */
+public final class AvaliadorTolerancia {
+
+    public static final String APROVADO = "APROVADO";
+    public static final String REPROVADO = "REPROVADO";
+
+    // metadadosCotas de onde este avaliador foi compilado (identifica a versão do TipoPeca)
+    private final String origem;
+
+    private final String[] nomes;
+    private final Map<String, Integer> indices;
+    private final boolean[] comTolerancia;
+    private final double[] valoresPadrao;
+    private final double[] tolerancias;
+    private final double[] limitesInferiores;
+    private final double[] limitesSuperiores;
+
+    private AvaliadorTolerancia(String origem, List<CotaMetadata> cotas) {
+        int quantidade = cotas.size();
+        this.origem = origem;
+        this.nomes = new String[quantidade];
+        this.indices = new HashMap<>(quantidade * 2);
+        this.comTolerancia = new boolean[quantidade];
+        this.valoresPadrao = new double[quantidade];
+        this.tolerancias = new double[quantidade];
+        this.limitesInferiores = new double[quantidade];
+        this.limitesSuperiores = new double[quantidade];
+
+        for (int i = 0; i < quantidade; i++) {
+            CotaMetadata cota = cotas.get(i);
+            nomes[i] = cota.nome() != null ? cota.nome().intern() : null;
+            if (nomes[i] != null) {
+                indices.putIfAbsent(nomes[i], i);
+            }
+
+            if (cota.valorPadrao() != null && cota.tolerancia() != null) {
+                comTolerancia[i] = true;
+                valoresPadrao[i] = cota.valorPadrao();
+                tolerancias[i] = cota.tolerancia();
+                limitesInferiores[i] = cota.valorPadrao() - cota.tolerancia();
+                limitesSuperiores[i] = cota.valorPadrao() + cota.tolerancia();
+            }
+        }
+    }
+
+    public static AvaliadorTolerancia compilar(String origem, List<CotaMetadata> cotas) {
+        return new AvaliadorTolerancia(origem, cotas);
+    }
+
+    /**
+     * Mesmas regras do antigo calcularStatusMedicao: reprova se faltar alguma cota
+     * ou se |medido - padrão| passar da tolerância; cotas sem padrão/tolerância só precisam estar presentes.
+     * Valores NaN ou infinitos sempre reprovam.
+     */
+    public String avaliar(Map<String, Double> dimensoesMedidas) {
+        for (int i = 0; i < nomes.length; i++) {
+            Double valorMedido = dimensoesMedidas.get(nomes[i]);
+
+            if (valorMedido == null) {
+                if (!dimensoesMedidas.containsKey(nomes[i])) {
+                    return REPROVADO; // Cota obrigatória não preenchida
+                }
+                continue; // Pula se não tem dados suficientes
+            }
+
+            // NaN passaria em qualquer comparação abaixo
+            if (!Double.isFinite(valorMedido)) {
+                return REPROVADO;
+            }
+
+            // Mantém a comparação pela diferença absoluta para classificar exatamente como antes
+            if (comTolerancia[i] && Math.abs(valorMedido - valoresPadrao[i]) > tolerancias[i]) {
+                return REPROVADO; // Fora da tolerância
+            }
+        }
+        return APROVADO;
+    }
+
+    public boolean compiladoDe(String metadadosCotas) {
+        return Objects.equals(origem, metadadosCotas);
+    }
+
+    public int quantidadeCotas() {
+        return nomes.length;
+    }
+
+    // Índice da cota pelo nome, ou -1 se não existir neste tipo de peça
+    public int indiceDe(String nomeCota) {
+        Integer indice = indices.get(nomeCota);
+        return indice != null ? indice : -1;
+    }
+
+    public String nome(int indice) {
+        return nomes[indice];
+    }
+
+    public boolean temTolerancia(int indice) {
+        return comTolerancia[indice];
+    }
+
+    public double limiteInferior(int indice) {
+        return limitesInferiores[indice];
+    }
+
+    public double limiteSuperior(int indice) {
+        return limitesSuperiores[indice];
+    }
+}
@@ -0,0 +1,38 @@
+package com.server.coester.services;
+
+import com.server.coester.entities.TipoPeca;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache dos avaliadores de tolerância por TipoPeca.
+ * A entrada só é reaproveitada se foi compilada a partir dos mesmos metadadosCotas da entidade carregada,
+ * então uma versão nova do TipoPeca (inclusive alterada por outro nó) nunca usa limites antigos.
+ */
+@Component
+public class AvaliadorToleranciaCache {
+
+    private final ConcurrentHashMap<Long, AvaliadorTolerancia> avaliadores = new ConcurrentHashMap<>();
+
+    @Autowired
+    private MetadadosCotasCache metadadosCotasCache;
+
+    public AvaliadorTolerancia obter(TipoPeca tipoPeca) {
+        String metadadosCotas = tipoPeca.getMetadadosCotas();
+
+        AvaliadorTolerancia avaliador = avaliadores.get(tipoPeca.getId());
+        if (avaliador != null && avaliador.compiladoDe(metadadosCotas)) {
+            return avaliador;
+        }
+
+        avaliador = AvaliadorTolerancia.compilar(metadadosCotas, metadadosCotasCache.obter(tipoPeca));
+        avaliadores.put(tipoPeca.getId(), avaliador);
+        return avaliador;
+    }
+
+    public void invalidar(Long tipoPecaId) {
+        avaliadores.remove(tipoPecaId);
+    }
+}
@@ -0,0 +1,76 @@
+package com.server.coester.services;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Regras comuns da busca textual de lotes e tipos de peça (ver IndicesBuscaInitializer):
+ * termo normalizado em minúsculas, resultados por prefixo, depois por trecho (LIKE '%termo%') e por fim
+ * por similaridade, com limite. Cada fase só roda se as anteriores não preencheram o limite.
+ * Termos com menos de {@link #TAMANHO_MINIMO_TRIGRAMA} caracteres só usam a fase de prefixo: com 1 ou 2
+ * letras o índice trigram não filtra quase nada e as outras fases virariam varreduras da tabela.
+ */
+final class BuscaTexto {
+
+    static final int LIMITE_PADRAO = 20;
+    static final int LIMITE_MAXIMO = 50;
+    static final int TAMANHO_MINIMO_TRIGRAMA = 3;
+
+    private BuscaTexto() {
+    }
+
+    // Mesma normalização das expressões lower(...) dos índices
+    static String normalizar(String termo) {
+        return termo == null ? "" : termo.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static boolean usaTrigramas(String termo) {
+        return termo.length() >= TAMANHO_MINIMO_TRIGRAMA;
+    }
+
+    static int limite(Integer limite) {
+        if (limite == null || limite <= 0) {
+            return LIMITE_PADRAO;
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    // "ab_c" -> "ab\_c%": curingas do LIKE no termo são literais (o escape padrão do Postgres é '\')
+    static String prefixoLike(String termo) {
+        return escaparLike(termo) + "%";
+    }
+
+    // "ab_c" -> "%ab\_c%": busca por trecho, como o LIKE '%x%' original (índice trigram)
+    static String contemLike(String termo) {
+        return "%" + escaparLike(termo) + "%";
+    }
+
+    private static String escaparLike(String termo) {
+        StringBuilder escapado = new StringBuilder(termo.length() + 2);
+        for (int i = 0; i < termo.length(); i++) {
+            char c = termo.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') {
+                escapado.append('\\');
+            }
+            escapado.append(c);
+        }
+        return escapado.toString();
+    }
+
+    // Junta as fases na ordem, sem repetir itens, mantendo o limite
+    static <T, K> List<T> combinar(List<List<T>> fases, Function<T, K> chave, int limite) {
+        Set<K> vistos = new HashSet<>();
+        List<T> resultado = new ArrayList<>(limite);
+        for (List<T> lista : fases) {
+            for (T item : lista) {
+                if (resultado.size() == limite) {
+                    return resultado;
+                }
+                if (vistos.add(chave.apply(item))) {
+                    resultado.add(item);
+                }
+            }
+        }
+        return resultado;
+    }
+}
@@ -18,10 +18,13 @@ public class DashboardService {
     @Autowired
     private LoteService loteService;
 
+    @Autowired
+    private MetadadosCotasCache metadadosCotasCache;
+
 
     private LoteResumidoResponse toLoteResumidoResponse(Lote lote) {
         // Primeiro, criamos o DTO do TipoPeca, como fizemos anteriormente
-        TipoPecaResponse tipoPecaDto = new TipoPecaResponse(lote.getTipoPeca());
+        TipoPecaResponse tipoPecaDto = new TipoPecaResponse(lote.getTipoPeca(), metadadosCotasCache.obter(lote.getTipoPeca()));
 
         return new LoteResumidoResponse(
                 lote.getId(),                         // 1. id
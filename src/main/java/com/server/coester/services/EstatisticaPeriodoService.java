@@ -0,0 +1,148 @@
+package com.server.coester.services;
+
+import com.server.coester.dtos.EstatisticaPeriodoResponse;
+import com.server.coester.entities.EstatisticaPeriodo;
+import com.server.coester.entities.EstatisticaPeriodo.Granularidade;
+import com.server.coester.repositories.EstatisticaPeriodoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Mantém o rollup EstatisticaPeriodo (por dia e por hora).
+ * O LoteService chama os métodos registrar* ao criar, concluir, reabrir, recomeçar e excluir lotes
+ * e ao adicionar/remover medições; cada evento grava só uma linha pendente (INSERT), então escritas de
+ * lotes diferentes não esperam umas pelas outras nas linhas do período atual.
+ * Os pendentes são consolidados no rollup antes de cada leitura e periodicamente, um consolidador por vez.
+ * Um lote reaberto sai das estatísticas do período em que tinha sido concluído.
+ */
+@Service
+@Transactional
+public class EstatisticaPeriodoService {
+
+    @Autowired
+    private EstatisticaPeriodoRepository estatisticaPeriodoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Chamado pelo DadosIniciaisInitializer depois da migração das medições legadas e antes do servidor web
+    // aceitar requisições: eventos gravados durante a reconstrução seriam perdidos ou contados duas vezes
+    public void reconstruirSeVazio() {
+        travar();
+        if (estatisticaPeriodoRepository.count() > 0) {
+            return;
+        }
+
+        // O histórico já inclui o que estiver pendente
+        estatisticaPeriodoRepository.descartarPendentes();
+        for (Granularidade granularidade : Granularidade.values()) {
+            estatisticaPeriodoRepository.reconstruirLotesCriados(granularidade.name(), granularidade.getUnidadeSql());
+            estatisticaPeriodoRepository.reconstruirLotesConcluidos(granularidade.name(), granularidade.getUnidadeSql());
+            estatisticaPeriodoRepository.reconstruirMedicoes(granularidade.name(), granularidade.getUnidadeSql());
+        }
+    }
+
+    // Também no intervalo configurado, para a tabela de pendentes não crescer sem leituras
+    @Scheduled(fixedDelayString = "${coester.estatisticas.consolidacao-ms:60000}")
+    public void consolidar() {
+        travar();
+        estatisticaPeriodoRepository.consolidarPendentes();
+    }
+
+    // Advisory lock até o commit: consolidação e reconstrução de vários nós não se sobrepõem
+    private void travar() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('estatisticas_periodo'))");
+    }
+
+    public List<EstatisticaPeriodoResponse> listar(String dataInicio, String dataFim, String granularidade) {
+        Granularidade granularidadeConsulta = granularidade == null || granularidade.isBlank()
+                ? Granularidade.DIA
+                : Granularidade.valueOf(granularidade.trim().toUpperCase());
+
+        LocalDateTime inicio = granularidadeConsulta.inicioDoPeriodo(parseData(dataInicio, false));
+        LocalDateTime fim = parseData(dataFim, true);
+        if (fim.isBefore(inicio)) {
+            throw new IllegalArgumentException("dataFim deve ser posterior a dataInicio");
+        }
+
+        consolidar();
+        return estatisticaPeriodoRepository
+                .findByGranularidadeAndInicioBetweenOrderByInicioAsc(granularidadeConsulta, inicio, fim)
+                .stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    public void registrarLoteCriado(LocalDateTime dataCriacao, int sinal) {
+        somar(dataCriacao, sinal, 0, 0, 0, 0, 0, 0.0);
+    }
+
+    // Criação em lote: uma linha pendente para todos os lotes do mesmo período
+    public void registrarLotesCriados(LocalDateTime dataCriacao, long quantidade) {
+        somar(dataCriacao, quantidade, 0, 0, 0, 0, 0, 0.0);
+    }
+
+    // sinal = -1 desfaz uma conclusão (reabrir, recomeçar ou excluir um lote concluído)
+    public void registrarConclusao(LocalDateTime dataConclusao, String status, Double taxaAprovacao, int sinal) {
+        if (dataConclusao == null || !("APROVADO".equals(status) || "REPROVADO".equals(status))) {
+            return;
+        }
+        somar(dataConclusao, 0, sinal,
+                "APROVADO".equals(status) ? sinal : 0,
+                "REPROVADO".equals(status) ? sinal : 0,
+                0, 0,
+                sinal * (taxaAprovacao != null ? taxaAprovacao : 0.0));
+    }
+
+    public void registrarMedicoes(LocalDateTime data, long medidas, long aprovadas) {
+        somar(data, 0, 0, 0, 0, medidas, aprovadas, 0.0);
+    }
+
+    // Antes do DELETE das medições do lote
+    public void descontarMedicoesDoLote(Long loteId) {
+        estatisticaPeriodoRepository.descontarMedicoesDoLote(loteId);
+    }
+
+    private void somar(LocalDateTime instante, long lotesCriados, long lotesConcluidos, long lotesAprovados,
+                       long lotesReprovados, long pecasMedidas, long pecasAprovadas, double somaTaxa) {
+        if (instante == null) {
+            return;
+        }
+        estatisticaPeriodoRepository.registrar(instante, lotesCriados, lotesConcluidos, lotesAprovados,
+                lotesReprovados, pecasMedidas, pecasAprovadas, somaTaxa);
+    }
+
+    // Aceita "2025-01-31" ou "2025-01-31T14:00"; uma data sem hora no fim inclui o dia inteiro
+    private LocalDateTime parseData(String data, boolean fimDoIntervalo) {
+        if (data.contains("T")) {
+            return LocalDateTime.parse(data);
+        }
+        LocalDate dia = LocalDate.parse(data);
+        return fimDoIntervalo ? dia.atTime(LocalTime.MAX) : dia.atStartOfDay();
+    }
+
+    private EstatisticaPeriodoResponse toResponse(EstatisticaPeriodo estatistica) {
+        Double taxaAprovacaoMedia = estatistica.getLotesConcluidos() > 0
+                ? estatistica.getSomaTaxaAprovacao() / estatistica.getLotesConcluidos()
+                : 0.0;
+
+        return new EstatisticaPeriodoResponse(
+                estatistica.getInicio(),
+                estatistica.getLotesCriados(),
+                estatistica.getLotesConcluidos(),
+                estatistica.getLotesAprovados(),
+                estatistica.getLotesReprovados(),
+                estatistica.getPecasMedidas(),
+                estatistica.getPecasAprovadas(),
+                taxaAprovacaoMedia
+        );
+    }
+}
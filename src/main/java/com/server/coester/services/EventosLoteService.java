@@ -0,0 +1,232 @@
+package com.server.coester.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.coester.dtos.EventoLoteResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feed ao vivo (Server-Sent Events) das alterações de lotes, por lote e por usuário.
+ * O LoteService publica um EventoLote na transação; ele só é distribuído depois do commit.
+ * Cada assinante tem uma fila limitada e é drenado em sua própria tarefa: um cliente lento
+ * que enche a fila é desconectado (e reconecta pelo EventSource), sem atrasar os demais
+ * nem a transação que gerou o evento.
+ */
+@Slf4j
+@Service
+public class EventosLoteService {
+
+    // Evento publicado pelo LoteService; usuarioId é o dono do lote (feed do dashboard)
+    public record EventoLote(Long usuarioId, EventoLoteResponse dados) {}
+
+    private static final int CAPACIDADE_FILA = 256;
+    private static final long TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long INTERVALO_HEARTBEAT_SEGUNDOS = 25;
+
+    private final ConcurrentHashMap<Long, Set<Assinante>> assinantesPorLote = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<Assinante>> assinantesPorUsuario = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequencia = new AtomicLong();
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Uma tarefa de envio por assinante com eventos pendentes (no máximo uma por assinante na fila).
+    // Threads de plataforma mesmo com spring.threads.virtual.enabled: ResponseBodyEmitter.send é synchronized
+    // e escreve no socket dentro do monitor, o que prenderia (pinning) a carrier thread no Java 21.
+    // Número fixo de threads: muitos assinantes esperam na fila em vez de criar uma thread cada
+    private final ThreadPoolExecutor envios;
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("sse-heartbeat-"));
+
+    public EventosLoteService(@Value("${coester.eventos.threads-envio:16}") int threadsEnvio) {
+        int threads = Math.max(1, threadsEnvio);
+        envios = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemon("sse-envio-"));
+        envios.allowCoreThreadTimeOut(true);
+
+        // Comentário SSE periódico: mantém proxies abertos e detecta conexões mortas
+        heartbeat.scheduleAtFixedRate(this::enviarHeartbeat,
+                INTERVALO_HEARTBEAT_SEGUNDOS, INTERVALO_HEARTBEAT_SEGUNDOS, TimeUnit.SECONDS);
+    }
+
+    public SseEmitter assinarLote(Long loteId) {
+        return assinar(assinantesPorLote, loteId);
+    }
+
+    public SseEmitter assinarUsuario(Long usuarioId) {
+        return assinar(assinantesPorUsuario, usuarioId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void distribuir(EventoLote evento) {
+        // JSON gerado uma vez: o emitter só escreve a String, sem passar pelo Jackson por assinante
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(evento.dados());
+        } catch (JsonProcessingException e) {
+            log.error("Erro ao serializar evento {} do lote {}", evento.dados().tipo(), evento.dados().loteId(), e);
+            return;
+        }
+        // Montado uma vez e compartilhado (somente leitura) por todos os assinantes
+        Set<ResponseBodyEmitter.DataWithMediaType> mensagem = SseEmitter.event()
+                .id(String.valueOf(sequencia.incrementAndGet()))
+                .name(evento.dados().tipo())
+                .data(json)
+                .build();
+
+        // LOTES_CRIADOS não tem loteId (lotes recém-criados ainda não têm assinantes próprios)
+        Long loteId = evento.dados().loteId();
+        if ("LOTE_EXCLUIDO".equals(evento.dados().tipo()) && loteId != null) {
+            // Último evento do lote: os streams dele são encerrados depois de enviá-lo
+            Set<Assinante> assinantes = assinantesPorLote.remove(loteId);
+            enfileirar(assinantes, mensagem);
+            if (assinantes != null) {
+                assinantes.forEach(Assinante::encerrarAposEnvio);
+            }
+        } else if (loteId != null) {
+            enfileirar(assinantesPorLote.get(loteId), mensagem);
+        }
+        if (evento.usuarioId() != null) {
+            enfileirar(assinantesPorUsuario.get(evento.usuarioId()), mensagem);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        heartbeat.shutdownNow();
+        envios.shutdownNow();
+        assinantesPorLote.values().forEach(assinantes -> assinantes.forEach(Assinante::desconectar));
+        assinantesPorUsuario.values().forEach(assinantes -> assinantes.forEach(Assinante::desconectar));
+    }
+
+    private SseEmitter assinar(ConcurrentHashMap<Long, Set<Assinante>> assinantes, Long chave) {
+        SseEmitter emitter = new SseEmitter(TIMEOUT_MILLIS);
+        Assinante assinante = new Assinante(emitter);
+
+        assinantes.computeIfAbsent(chave, k -> ConcurrentHashMap.newKeySet()).add(assinante);
+        Runnable remover = () -> assinantes.computeIfPresent(chave, (k, conjunto) -> {
+            conjunto.remove(assinante);
+            return conjunto.isEmpty() ? null : conjunto;
+        });
+        emitter.onCompletion(remover);
+        emitter.onTimeout(() -> {
+            remover.run();
+            emitter.complete();
+        });
+        emitter.onError(erro -> remover.run());
+
+        // Primeiro envio confirma a conexão ao cliente
+        assinante.enfileirar(SseEmitter.event().comment("conectado").build());
+        return emitter;
+    }
+
+    private void enfileirar(Set<Assinante> assinantes, Set<ResponseBodyEmitter.DataWithMediaType> mensagem) {
+        if (assinantes == null) {
+            return;
+        }
+        for (Assinante assinante : assinantes) {
+            assinante.enfileirar(mensagem);
+        }
+    }
+
+    private void enviarHeartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> comentario = SseEmitter.event().comment("heartbeat").build();
+        assinantesPorLote.values().forEach(assinantes -> enfileirar(assinantes, comentario));
+        assinantesPorUsuario.values().forEach(assinantes -> enfileirar(assinantes, comentario));
+    }
+
+    private static ThreadFactory daemon(String prefixo) {
+        AtomicLong contador = new AtomicLong();
+        return tarefa -> {
+            Thread thread = new Thread(tarefa, prefixo + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private class Assinante {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> fila = new ArrayBlockingQueue<>(CAPACIDADE_FILA);
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private volatile boolean desconectado;
+        private volatile boolean encerrarAoEsvaziar;
+
+        private Assinante(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void enfileirar(Set<ResponseBodyEmitter.DataWithMediaType> mensagem) {
+            if (desconectado) {
+                return;
+            }
+            if (!fila.offer(mensagem)) {
+                // Fila cheia: o cliente não acompanha o ritmo dos eventos
+                desconectar();
+                return;
+            }
+            agendarEnvio();
+        }
+
+        private void agendarEnvio() {
+            if (enviando.compareAndSet(false, true)) {
+                try {
+                    envios.execute(this::drenar);
+                } catch (RejectedExecutionException e) {
+                    enviando.set(false);
+                }
+            }
+        }
+
+        private void drenar() {
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> mensagem;
+                while (!desconectado && (mensagem = fila.poll()) != null) {
+                    emitter.send(mensagem);
+                }
+            } catch (Exception e) {
+                desconectar();
+            } finally {
+                enviando.set(false);
+            }
+            // Evento chegou entre o último poll e a liberação da flag
+            if (!desconectado && !fila.isEmpty()) {
+                agendarEnvio();
+            } else if (encerrarAoEsvaziar) {
+                desconectar();
+            }
+        }
+
+        // Completa o emitter quando a fila esvaziar (desconectar() descartaria o que ainda não foi enviado)
+        private void encerrarAposEnvio() {
+            encerrarAoEsvaziar = true;
+            agendarEnvio();
+        }
+
+        private void desconectar() {
+            if (desconectado) {
+                return;
+            }
+            desconectado = true;
+            fila.clear();
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {
+                // Conexão já encerrada
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.server.coester.services;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.StringJoiner;
+
+/**
+ * Formato legível do codigoLote: prefixo, data da criação (opcional) e contador, separados por '-'.
+ * Ex.: "LOTE-20261018-000123". A unicidade vem só do contador; a data é informativa.
+ */
+final class FormatoCodigoLote {
+
+    private final String prefixo;
+    private final DateTimeFormatter formatoData;
+    private final int digitos;
+
+    FormatoCodigoLote(String prefixo, String formatoData, int digitos) {
+        this.prefixo = prefixo;
+        this.formatoData = formatoData == null || formatoData.isBlank() ? null : DateTimeFormatter.ofPattern(formatoData);
+        this.digitos = Math.max(1, digitos);
+    }
+
+    boolean temData() {
+        return formatoData != null;
+    }
+
+    // Regex (sintaxe do Postgres) dos códigos sem data deste prefixo, com o contador no grupo 1
+    String regexSemData() {
+        String inicio = prefixo != null && !prefixo.isBlank()
+                ? prefixo.replaceAll("[^A-Za-z0-9]", "\\\\$0") + "-"
+                : "";
+        return "^" + inicio + "([0-9]{1,18})$";
+    }
+
+    // O contador é completado com zeros à esquerda até 'digitos' (pode passar disso, nunca é truncado)
+    String formatar(LocalDate data, long contador) {
+        return formatar(data, String.format("%0" + digitos + "d", contador));
+    }
+
+    String formatar(LocalDate data, String contador) {
+        StringJoiner codigo = new StringJoiner("-");
+        if (prefixo != null && !prefixo.isBlank()) {
+            codigo.add(prefixo);
+        }
+        if (formatoData != null) {
+            codigo.add(formatoData.format(data));
+        }
+        return codigo.add(contador).toString();
+    }
+}
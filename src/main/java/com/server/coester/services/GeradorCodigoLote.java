@@ -0,0 +1,13 @@
+package com.server.coester.services;
+
+/**
+ * Gera o codigoLote (único em todo o cluster) de cada lote novo.
+ * Implementação escolhida por coester.lote.codigo.gerador:
+ * - sequencia (padrão): {@link GeradorCodigoLoteSequencia}, contador de uma sequence do Postgres alocado em blocos
+ * - temporal: {@link GeradorCodigoLoteTemporal}, id ordenado no tempo com o número do nó, sem acesso ao banco
+ * Nas duas o texto segue o mesmo formato configurável (ver {@link FormatoCodigoLote}).
+ */
+public interface GeradorCodigoLote {
+
+    String proximoCodigo();
+}
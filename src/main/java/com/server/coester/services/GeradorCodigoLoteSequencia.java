@@ -0,0 +1,123 @@
+package com.server.coester.services;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Contador global numa sequence do Postgres com INCREMENT BY = tamanho do bloco.
+ * Cada nextval reserva um bloco inteiro para este nó, então só há uma ida ao banco a cada 'bloco' códigos.
+ * Códigos de nós diferentes nunca se repetem; a ordem entre nós é só aproximada e um reinício descarta
+ * o resto do bloco (buracos no contador são esperados).
+ * Sem data no formato os códigos têm a forma dos antigos (LOTE-123456, últimos dígitos do timestamp):
+ * nesse caso a sequence é avançada para depois do maior contador já usado com o mesmo prefixo.
+ */
+@Component
+@ConditionalOnProperty(name = "coester.lote.codigo.gerador", havingValue = "sequencia", matchIfMissing = true)
+public class GeradorCodigoLoteSequencia implements GeradorCodigoLote {
+
+    static final String SEQUENCIA = "codigo_lote_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FormatoCodigoLote formato;
+    private final int blocoConfigurado;
+
+    // ReentrantLock e não synchronized: quem espera aqui pode ser uma virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private int bloco;
+    private long proximo;
+    private long limite = -1;
+
+    public GeradorCodigoLoteSequencia(JdbcTemplate jdbcTemplate,
+                                      @Value("${coester.lote.codigo.prefixo:LOTE}") String prefixo,
+                                      @Value("${coester.lote.codigo.formato-data:yyyyMMdd}") String formatoData,
+                                      @Value("${coester.lote.codigo.digitos:6}") int digitos,
+                                      @Value("${coester.lote.codigo.bloco:100}") int bloco) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.formato = new FormatoCodigoLote(prefixo, formatoData, digitos);
+        this.blocoConfigurado = Math.max(1, bloco);
+    }
+
+    @Override
+    public String proximoCodigo() {
+        long contador;
+        lock.lock();
+        try {
+            if (proximo > limite) {
+                reservarBloco();
+            }
+            contador = proximo++;
+        } finally {
+            lock.unlock();
+        }
+        return formato.formatar(LocalDate.now(), contador);
+    }
+
+    // Fora de qualquer transação de request: um rollback não pode desfazer a criação da sequence
+    @PostConstruct
+    public void criarSequencia() {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCIA
+                + " START WITH " + blocoConfigurado + " INCREMENT BY " + blocoConfigurado);
+        // Vale o incremento gravado na sequence: se a configuração mudou depois de criada, os blocos
+        // continuam alinhados com os dos outros nós
+        bloco = jdbcTemplate.queryForObject(
+                "SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = ?",
+                Integer.class, SEQUENCIA);
+        if (!formato.temData()) {
+            pularCodigosExistentes();
+        }
+    }
+
+    // Numa transação com advisory lock: dois nós subindo juntos não fazem o setval voltar a sequence
+    // depois de um nextval do outro. Só avança, nunca recua
+    private void pularCodigosExistentes() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) conexao -> {
+            boolean autoCommit = conexao.getAutoCommit();
+            conexao.setAutoCommit(false);
+            try (Statement comando = conexao.createStatement()) {
+                comando.execute("SELECT pg_advisory_xact_lock(hashtext('" + SEQUENCIA + "'))");
+                // Banco novo: a tabela ainda não existe (ddl-auto roda depois) e não há códigos antigos
+                boolean temLotes;
+                try (ResultSet resultado = comando.executeQuery("SELECT to_regclass('lotes') IS NOT NULL")) {
+                    temLotes = resultado.next() && resultado.getBoolean(1);
+                }
+                if (temLotes) {
+                    // Próximo bloco: last_value + 1 em diante se já houve nextval, senão o primeiro bloco
+                    try (PreparedStatement avancar = conexao.prepareStatement(
+                            "SELECT setval('" + SEQUENCIA + "', maior) FROM ("
+                                    + " SELECT max(CAST(substring(codigo_lote FROM ?) AS bigint)) AS maior FROM lotes"
+                                    + ") existentes, " + SEQUENCIA + " s"
+                                    + " WHERE maior >= CASE WHEN s.is_called THEN s.last_value + 1"
+                                    + " ELSE s.last_value - ? + 1 END")) {
+                        avancar.setString(1, formato.regexSemData());
+                        avancar.setLong(2, bloco);
+                        avancar.executeQuery().close();
+                    }
+                }
+                conexao.commit();
+            } catch (SQLException e) {
+                conexao.rollback();
+                throw e;
+            } finally {
+                conexao.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private void reservarBloco() {
+        Long fim = jdbcTemplate.queryForObject("SELECT nextval('" + SEQUENCIA + "')", Long.class);
+        proximo = fim - bloco + 1;
+        limite = fim;
+    }
+}
@@ -0,0 +1,121 @@
+package com.server.coester.services;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Id de 63 bits ordenado no tempo, sem acesso ao banco:
+ * 41 bits de milissegundos desde 2024-01-01 | 10 bits do nó (coester.lote.codigo.no, 0..1023) | 12 bits de contador.
+ * Cada nó do cluster precisa de um número de nó próprio. O contador é impresso em base 36 com largura fixa
+ * (13 caracteres), então a ordem alfabética dos códigos é a ordem de criação.
+ * Mais de 4096 códigos no mesmo ms, ou relógio voltando, avançam o instante lógico em vez de esperar.
+ * Esse instante lógico pode ficar à frente do relógio; para um reinício não repetir códigos, ele é
+ * retomado do maior código já gravado em lotes.
+ */
+@Component
+@ConditionalOnProperty(name = "coester.lote.codigo.gerador", havingValue = "temporal")
+public class GeradorCodigoLoteTemporal implements GeradorCodigoLote {
+
+    static final long EPOCA = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int BITS_NO = 10;
+    static final int BITS_CONTADOR = 12;
+    static final int LARGURA = 13;
+
+    // Códigos gravados com instante além disso são ignorados na retomada (dado corrompido, não relógio adiantado)
+    static final long TOLERANCIA_FUTURO_MS = 24 * 60 * 60 * 1000L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FormatoCodigoLote formato;
+    private final long no;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long ultimoInstante = -1;
+    private long contador;
+
+    public GeradorCodigoLoteTemporal(JdbcTemplate jdbcTemplate,
+                                     @Value("${coester.lote.codigo.prefixo:LOTE}") String prefixo,
+                                     @Value("${coester.lote.codigo.formato-data:yyyyMMdd}") String formatoData,
+                                     @Value("${coester.lote.codigo.no:0}") long no) {
+        if (no < 0 || no >= (1L << BITS_NO)) {
+            throw new IllegalArgumentException("coester.lote.codigo.no deve estar entre 0 e " + ((1L << BITS_NO) - 1));
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.formato = new FormatoCodigoLote(prefixo, formatoData, LARGURA);
+        this.no = no;
+    }
+
+    // Maior id já emitido (de qualquer nó: só é mais conservador). Ids de largura fixa em base 36
+    // maiúscula, então o maior texto em COLLATE "C" é o maior id
+    @PostConstruct
+    public void retomarDoMaiorCodigo() {
+        Boolean temLotes = jdbcTemplate.queryForObject("SELECT to_regclass('lotes') IS NOT NULL", Boolean.class);
+        if (!Boolean.TRUE.equals(temLotes)) {
+            return;
+        }
+        String maior = jdbcTemplate.queryForObject(
+                "SELECT max(right(codigo_lote, " + LARGURA + ") COLLATE \"C\") FROM lotes"
+                        + " WHERE codigo_lote ~ '[0-9A-Z]{" + LARGURA + "}$'", String.class);
+        retomar(maior, System.currentTimeMillis() - EPOCA);
+    }
+
+    // package-private para os testes
+    void retomar(String maiorId, long agora) {
+        if (maiorId == null) {
+            return;
+        }
+        long instante;
+        try {
+            instante = Long.parseLong(maiorId, 36) >>> (BITS_NO + BITS_CONTADOR);
+        } catch (NumberFormatException e) {
+            return; // não cabe em 63 bits: não foi gerado aqui
+        }
+        if (instante > agora + TOLERANCIA_FUTURO_MS) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (instante >= ultimoInstante) {
+                // Contador no máximo: o próximo código no mesmo instante já passa para o seguinte
+                ultimoInstante = instante;
+                contador = (1L << BITS_CONTADOR) - 1;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String proximoCodigo() {
+        long instante;
+        long sequencia;
+        lock.lock();
+        try {
+            long agora = System.currentTimeMillis() - EPOCA;
+            if (agora > ultimoInstante) {
+                ultimoInstante = agora;
+                contador = 0;
+            } else if (++contador >= (1L << BITS_CONTADOR)) {
+                ultimoInstante++;
+                contador = 0;
+            }
+            instante = ultimoInstante;
+            sequencia = contador;
+        } finally {
+            lock.unlock();
+        }
+
+        long id = (instante << (BITS_NO + BITS_CONTADOR)) | (no << BITS_CONTADOR) | sequencia;
+        String base36 = Long.toString(id, 36).toUpperCase(Locale.ROOT);
+        LocalDate data = LocalDate.ofInstant(Instant.ofEpochMilli(instante + EPOCA), ZoneId.systemDefault());
+        return formato.formatar(data, "0".repeat(Math.max(0, LARGURA - base36.length())) + base36);
+    }
+}
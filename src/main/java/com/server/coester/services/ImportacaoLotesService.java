@@ -0,0 +1,258 @@
+package com.server.coester.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.coester.dtos.CriarLoteRequest;
+import com.server.coester.dtos.ErroLinhaImportacao;
+import com.server.coester.dtos.ImportacaoLotesResponse;
+import com.server.coester.dtos.LoteImportadoResponse;
+import com.server.coester.entities.Lote;
+import com.server.coester.entities.TipoPeca;
+import com.server.coester.repositories.TipoPecaRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Criação de lotes a partir de um arquivo de ordens de produção (NDJSON ou CSV com CriarLoteRequest).
+ * Mesmo esquema da {@link ImportacaoMedicoesService}: leitura linha a linha e gravação em blocos de
+ * {@link #TAMANHO_BLOCO} lotes, cada bloco na sua própria transação (via {@link LoteService#criarLotes}).
+ * Os tipos de peça são buscados uma vez por bloco, só os ids ainda não vistos na importação.
+ */
+@Slf4j
+@Service
+public class ImportacaoLotesService {
+
+    static final int TAMANHO_BLOCO = 500;
+
+    // Colunas do CSV (nomes dos campos do CriarLoteRequest, sem diferenciar maiúsculas)
+    private static final List<String> COLUNAS = List.of(
+            "descricao", "tipoPecaId", "quantidadePecas", "quantidadeAmostrasDesejada", "observacoes");
+
+    @Autowired
+    private LoteService loteService;
+
+    @Autowired
+    private TipoPecaRepository tipoPecaRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    // Como na importação de medições: falha de leitura no meio devolve o relatório parcial (interrompida = true)
+    public ImportacaoLotesResponse importar(InputStream entrada, String contentType) {
+        LeitorImportacao.Formato formato = LeitorImportacao.formatoDe(contentType);
+        Progresso progresso = new Progresso();
+
+        try (BufferedReader leitor = LeitorImportacao.leitor(entrada)) {
+            Map<String, Integer> colunas = null;
+            char separador = ',';
+
+            String linha;
+            int numeroLinha = 0;
+            while ((linha = leitor.readLine()) != null) {
+                numeroLinha++;
+                if (numeroLinha == 1) {
+                    linha = LeitorImportacao.semBom(linha);
+                }
+                if (linha.isBlank()) {
+                    continue;
+                }
+
+                if (formato == LeitorImportacao.Formato.CSV && colunas == null) {
+                    separador = LeitorImportacao.separadorCsv(linha);
+                    colunas = colunasCsv(LeitorImportacao.dividirCsv(linha, separador));
+                    continue;
+                }
+
+                progresso.linhasLidas++;
+                try {
+                    CriarLoteRequest request = formato == LeitorImportacao.Formato.CSV
+                            ? lerLinhaCsv(linha, colunas, separador)
+                            : objectMapper.readValue(linha, CriarLoteRequest.class);
+                    validar(request);
+                    progresso.adicionar(numeroLinha, request);
+                } catch (Exception e) {
+                    progresso.erro(numeroLinha, LeitorImportacao.mensagemDe(e));
+                }
+
+                if (progresso.bloco.size() >= TAMANHO_BLOCO && !gravarBloco(progresso)) {
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Importação de lotes interrompida após a linha {}: {}",
+                    progresso.ultimaLinhaGravada, LeitorImportacao.mensagemDe(e));
+            progresso.interromper(LeitorImportacao.mensagemDe(e));
+        }
+
+        if (!progresso.bloco.isEmpty()) {
+            gravarBloco(progresso);
+        }
+
+        return progresso.toResponse();
+    }
+
+    // Grava o bloco atual numa transação própria. Retorna false se a importação deve ser interrompida.
+    private boolean gravarBloco(Progresso progresso) {
+        int ultimaLinhaDoBloco = progresso.linhasDoBloco.get(progresso.linhasDoBloco.size() - 1);
+        try {
+            resolverTiposPeca(progresso);
+            if (progresso.bloco.isEmpty()) {
+                progresso.ultimaLinhaGravada = ultimaLinhaDoBloco;
+                return true;
+            }
+
+            List<Lote> lotes = loteService.criarLotes(progresso.bloco, progresso.tiposPeca);
+            for (int i = 0; i < lotes.size(); i++) {
+                Lote lote = lotes.get(i);
+                progresso.lotes.add(new LoteImportadoResponse(progresso.linhasDoBloco.get(i), lote.getId(), lote.getCodigoLote()));
+            }
+            progresso.blocosGravados++;
+            progresso.ultimaLinhaGravada = ultimaLinhaDoBloco;
+            log.info("Importação de lotes: {} lote(s) criados ({} bloco(s))",
+                    progresso.lotes.size(), progresso.blocosGravados);
+            return true;
+
+        } catch (RuntimeException e) {
+            // O bloco inteiro foi desfeito: todas as suas linhas ficam como erro e a importação para
+            for (Integer linha : progresso.linhasDoBloco) {
+                progresso.erro(linha, "Bloco não gravado: " + LeitorImportacao.mensagemDe(e));
+            }
+            progresso.interromper(LeitorImportacao.mensagemDe(e));
+            return false;
+
+        } finally {
+            progresso.bloco.clear();
+            progresso.linhasDoBloco.clear();
+        }
+    }
+
+    // Uma consulta por bloco, só com os ids que ainda não estão no cache da importação.
+    // Linhas com tipo de peça inexistente viram erro e saem do bloco.
+    private void resolverTiposPeca(Progresso progresso) {
+        Set<Long> novos = new HashSet<>();
+        for (CriarLoteRequest request : progresso.bloco) {
+            if (!progresso.tiposPeca.containsKey(request.tipoPecaId())
+                    && !progresso.tiposInexistentes.contains(request.tipoPecaId())) {
+                novos.add(request.tipoPecaId());
+            }
+        }
+        if (!novos.isEmpty()) {
+            for (TipoPeca tipoPeca : tipoPecaRepository.findAllById(novos)) {
+                progresso.tiposPeca.put(tipoPeca.getId(), tipoPeca);
+            }
+            novos.removeAll(progresso.tiposPeca.keySet());
+            progresso.tiposInexistentes.addAll(novos);
+        }
+
+        for (int i = progresso.bloco.size() - 1; i >= 0; i--) {
+            Long tipoPecaId = progresso.bloco.get(i).tipoPecaId();
+            if (progresso.tiposInexistentes.contains(tipoPecaId)) {
+                progresso.erro(progresso.linhasDoBloco.get(i), "Tipo de peça não encontrado: " + tipoPecaId);
+                progresso.bloco.remove(i);
+                progresso.linhasDoBloco.remove(i);
+            }
+        }
+    }
+
+    private Map<String, Integer> colunasCsv(String[] cabecalho) {
+        Map<String, Integer> colunas = new HashMap<>();
+        for (int i = 0; i < cabecalho.length; i++) {
+            for (String coluna : COLUNAS) {
+                if (coluna.equalsIgnoreCase(cabecalho[i])) {
+                    colunas.put(coluna, i);
+                }
+            }
+        }
+        return colunas;
+    }
+
+    private CriarLoteRequest lerLinhaCsv(String linha, Map<String, Integer> colunas, char separador) {
+        String[] valores = LeitorImportacao.dividirCsv(linha, separador);
+        return new CriarLoteRequest(
+                textoCsv(valores, colunas, "descricao"),
+                numeroCsv(valores, colunas, "tipoPecaId", Long::valueOf),
+                numeroCsv(valores, colunas, "quantidadePecas", Integer::valueOf),
+                numeroCsv(valores, colunas, "quantidadeAmostrasDesejada", Integer::valueOf),
+                textoCsv(valores, colunas, "observacoes")
+        );
+    }
+
+    private String textoCsv(String[] valores, Map<String, Integer> colunas, String coluna) {
+        Integer indice = colunas.get(coluna);
+        if (indice == null || indice >= valores.length || valores[indice].isEmpty()) {
+            return null;
+        }
+        return valores[indice];
+    }
+
+    private <T> T numeroCsv(String[] valores, Map<String, Integer> colunas, String coluna,
+                            Function<String, T> conversor) {
+        String valor = textoCsv(valores, colunas, coluna);
+        try {
+            return valor != null ? conversor.apply(valor) : null;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido para '" + coluna + "': " + valor);
+        }
+    }
+
+    private void validar(CriarLoteRequest request) {
+        Set<ConstraintViolation<CriarLoteRequest>> violacoes = validator.validate(request);
+        if (!violacoes.isEmpty()) {
+            throw new IllegalArgumentException(violacoes.iterator().next().getMessage());
+        }
+        // Usada no cálculo da porcentagem de amostragem (coluna obrigatória em lotes)
+        if (request.quantidadeAmostrasDesejada() == null || request.quantidadeAmostrasDesejada() < 0) {
+            throw new IllegalArgumentException("Quantidade de amostras desejada é obrigatória");
+        }
+    }
+
+    private static class Progresso {
+        private final List<CriarLoteRequest> bloco = new ArrayList<>(TAMANHO_BLOCO);
+        private final List<Integer> linhasDoBloco = new ArrayList<>(TAMANHO_BLOCO);
+        private final Map<Long, TipoPeca> tiposPeca = new HashMap<>();
+        private final Set<Long> tiposInexistentes = new HashSet<>();
+        private final List<LoteImportadoResponse> lotes = new ArrayList<>();
+        private final List<ErroLinhaImportacao> erros = new ArrayList<>();
+        private int linhasLidas;
+        private int blocosGravados;
+        private int totalErros;
+        // Última linha do arquivo coberta por um bloco gravado; 0 se nenhum bloco foi gravado
+        private int ultimaLinhaGravada;
+        private String motivoInterrupcao;
+
+        private void adicionar(int linha, CriarLoteRequest request) {
+            bloco.add(request);
+            linhasDoBloco.add(linha);
+        }
+
+        // Conta todos os erros, mas só guarda o detalhe dos primeiros para não crescer com o arquivo
+        private void erro(int linha, String mensagem) {
+            totalErros++;
+            if (erros.size() < ImportacaoMedicoesService.MAXIMO_ERROS_DETALHADOS) {
+                erros.add(new ErroLinhaImportacao(linha, mensagem));
+            }
+        }
+
+        private void interromper(String motivo) {
+            if (motivoInterrupcao == null) {
+                motivoInterrupcao = motivo;
+            }
+        }
+
+        private ImportacaoLotesResponse toResponse() {
+            return new ImportacaoLotesResponse(linhasLidas, lotes.size(), blocosGravados, totalErros, lotes, erros,
+                    motivoInterrupcao != null, ultimaLinhaGravada, motivoInterrupcao);
+        }
+    }
+}
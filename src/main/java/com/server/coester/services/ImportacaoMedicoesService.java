@@ -0,0 +1,219 @@
+package com.server.coester.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.coester.dtos.AdicionarMedicaoRequestParameter;
+import com.server.coester.dtos.AdicionarMedicoesLoteResponse;
+import com.server.coester.dtos.ErroLinhaImportacao;
+import com.server.coester.dtos.ImportacaoMedicoesResponse;
+import com.server.coester.dtos.MedicaoResumoResponse;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Importação de arquivos de medição exportados pela CMM / calibradores.
+ * O corpo é lido linha a linha e gravado em blocos de {@link #TAMANHO_BLOCO} medições,
+ * cada bloco na sua própria transação (via {@link LoteService#adicionarMedicoes}).
+ * Não é transacional de propósito: um erro num bloco não desfaz os blocos já gravados.
+ */
+@Slf4j
+@Service
+public class ImportacaoMedicoesService {
+
+    static final int TAMANHO_BLOCO = 500;
+    static final int MAXIMO_ERROS_DETALHADOS = 100;
+
+    private static final String COLUNA_OBSERVACOES = "observacoes";
+
+    @Autowired
+    private LoteService loteService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private MetricasLote metricasLote;
+
+    // Não lança IOException: se a leitura falhar no meio (conexão caída, corpo truncado), o relatório volta
+    // com interrompida = true e a última linha gravada, já que os blocos anteriores continuam no banco
+    public ImportacaoMedicoesResponse importar(Long loteId, InputStream entrada, String contentType) {
+        LeitorImportacao.Formato formato = LeitorImportacao.formatoDe(contentType);
+        Progresso progresso = new Progresso(loteId);
+
+        try (BufferedReader leitor = LeitorImportacao.leitor(entrada)) {
+            String[] cabecalho = null;
+            char separador = ',';
+
+            String linha;
+            int numeroLinha = 0;
+            while ((linha = leitor.readLine()) != null) {
+                numeroLinha++;
+                if (numeroLinha == 1) {
+                    linha = LeitorImportacao.semBom(linha);
+                }
+                if (linha.isBlank()) {
+                    continue;
+                }
+
+                // CSV: a primeira linha não vazia é o cabeçalho com os nomes das cotas
+                if (formato == LeitorImportacao.Formato.CSV && cabecalho == null) {
+                    separador = LeitorImportacao.separadorCsv(linha);
+                    cabecalho = LeitorImportacao.dividirCsv(linha, separador);
+                    continue;
+                }
+
+                progresso.linhasLidas++;
+                long inicioParse = System.nanoTime();
+                try {
+                    AdicionarMedicaoRequestParameter medicao = formato == LeitorImportacao.Formato.CSV
+                            ? lerLinhaCsv(linha, cabecalho, separador)
+                            : objectMapper.readValue(linha, AdicionarMedicaoRequestParameter.class);
+                    validar(medicao);
+                    progresso.adicionar(numeroLinha, medicao);
+                } catch (Exception e) {
+                    progresso.erro(numeroLinha, LeitorImportacao.mensagemDe(e));
+                } finally {
+                    metricasLote.registrarParse(System.nanoTime() - inicioParse);
+                }
+
+                if (progresso.bloco.size() >= TAMANHO_BLOCO && !gravarBloco(progresso)) {
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Importação lote {} interrompida após a linha {}: {}",
+                    loteId, progresso.ultimaLinhaGravada, LeitorImportacao.mensagemDe(e));
+            progresso.interromper(LeitorImportacao.mensagemDe(e));
+        }
+
+        // As linhas já validadas antes de uma falha de leitura também são gravadas
+        if (!progresso.bloco.isEmpty()) {
+            gravarBloco(progresso);
+        }
+
+        return progresso.toResponse();
+    }
+
+    // Grava o bloco atual numa transação própria. Retorna false se a importação deve ser interrompida.
+    private boolean gravarBloco(Progresso progresso) {
+        try {
+            AdicionarMedicoesLoteResponse resultado =
+                    loteService.adicionarMedicoes(progresso.loteId, progresso.bloco);
+
+            for (MedicaoResumoResponse medicao : resultado.medicoes()) {
+                if ("APROVADO".equals(medicao.status())) {
+                    progresso.aprovadas++;
+                } else {
+                    progresso.reprovadas++;
+                }
+            }
+            progresso.importadas += resultado.medicoes().size();
+            progresso.blocosGravados++;
+            progresso.ultimaLinhaGravada = progresso.linhasDoBloco.get(progresso.linhasDoBloco.size() - 1);
+            log.info("Importação lote {}: {} medições gravadas ({} bloco(s))",
+                    progresso.loteId, progresso.importadas, progresso.blocosGravados);
+            return true;
+
+        } catch (RuntimeException e) {
+            // O bloco inteiro foi desfeito: todas as suas linhas ficam como erro e a importação para
+            for (Integer linha : progresso.linhasDoBloco) {
+                progresso.erro(linha, "Bloco não gravado: " + LeitorImportacao.mensagemDe(e));
+            }
+            progresso.interromper(LeitorImportacao.mensagemDe(e));
+            return false;
+
+        } finally {
+            progresso.bloco.clear();
+            progresso.linhasDoBloco.clear();
+        }
+    }
+
+    private AdicionarMedicaoRequestParameter lerLinhaCsv(String linha, String[] cabecalho, char separador) {
+        String[] valores = LeitorImportacao.dividirCsv(linha, separador);
+        if (valores.length > cabecalho.length) {
+            throw new IllegalArgumentException("Linha com mais colunas que o cabeçalho");
+        }
+
+        Map<String, Double> dimensoes = new HashMap<>();
+        String observacoes = null;
+        for (int i = 0; i < valores.length; i++) {
+            if (COLUNA_OBSERVACOES.equalsIgnoreCase(cabecalho[i])) {
+                observacoes = valores[i].isEmpty() ? null : valores[i];
+                continue;
+            }
+            try {
+                Double valor = LeitorImportacao.numeroCsv(valores[i], separador);
+                if (valor != null) {
+                    dimensoes.put(cabecalho[i], valor); // coluna vazia = cota não medida
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor inválido para '" + cabecalho[i] + "': " + valores[i]);
+            }
+        }
+        return new AdicionarMedicaoRequestParameter(dimensoes, observacoes);
+    }
+
+    private void validar(AdicionarMedicaoRequestParameter medicao) {
+        Set<ConstraintViolation<AdicionarMedicaoRequestParameter>> violacoes = validator.validate(medicao);
+        if (!violacoes.isEmpty()) {
+            throw new IllegalArgumentException(violacoes.iterator().next().getMessage());
+        }
+        // Aqui a linha com NaN vira erro sozinha, em vez de desfazer o bloco inteiro no LoteService
+        LoteService.validarValoresFinitos(medicao.dimensoes());
+    }
+
+    private static class Progresso {
+        private final Long loteId;
+        private final List<AdicionarMedicaoRequestParameter> bloco = new ArrayList<>(TAMANHO_BLOCO);
+        private final List<Integer> linhasDoBloco = new ArrayList<>(TAMANHO_BLOCO);
+        private final List<ErroLinhaImportacao> erros = new ArrayList<>();
+        private int linhasLidas;
+        private int importadas;
+        private int aprovadas;
+        private int reprovadas;
+        private int blocosGravados;
+        private int totalErros;
+        // Última linha do arquivo (1 = primeira) do último bloco gravado; 0 se nenhum bloco foi gravado
+        private int ultimaLinhaGravada;
+        private String motivoInterrupcao;
+
+        private Progresso(Long loteId) {
+            this.loteId = loteId;
+        }
+
+        private void adicionar(int linha, AdicionarMedicaoRequestParameter medicao) {
+            bloco.add(medicao);
+            linhasDoBloco.add(linha);
+        }
+
+        // Conta todos os erros, mas só guarda o detalhe dos primeiros para não crescer com o arquivo
+        private void erro(int linha, String mensagem) {
+            totalErros++;
+            if (erros.size() < MAXIMO_ERROS_DETALHADOS) {
+                erros.add(new ErroLinhaImportacao(linha, mensagem));
+            }
+        }
+
+        private void interromper(String motivo) {
+            if (motivoInterrupcao == null) {
+                motivoInterrupcao = motivo;
+            }
+        }
+
+        private ImportacaoMedicoesResponse toResponse() {
+            return new ImportacaoMedicoesResponse(loteId, linhasLidas, importadas, aprovadas, reprovadas,
+                    blocosGravados, totalErros, erros, motivoInterrupcao != null, ultimaLinhaGravada,
+                    motivoInterrupcao);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.server.coester.services;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Utilitário para arquivos importados linha a linha (NDJSON ou CSV).
+ * Nada aqui mantém o arquivo inteiro em memória: cada linha é lida, tratada e descartada.
+ */
+final class LeitorImportacao {
+
+    enum Formato { NDJSON, CSV }
+
+    private LeitorImportacao() {}
+
+    static Formato formatoDe(String contentType) {
+        if (contentType != null && contentType.toLowerCase().startsWith("text/csv")) {
+            return Formato.CSV;
+        }
+        return Formato.NDJSON;
+    }
+
+    static BufferedReader leitor(InputStream entrada) {
+        return new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+    }
+
+    // Planilhas em pt-BR costumam exportar com ';' (a vírgula é o separador decimal)
+    static char separadorCsv(String cabecalho) {
+        return cabecalho.indexOf(';') >= 0 ? ';' : ',';
+    }
+
+    static String[] dividirCsv(String linha, char separador) {
+        String[] campos = linha.split(Pattern.quote(String.valueOf(separador)), -1);
+        for (int i = 0; i < campos.length; i++) {
+            String campo = campos[i].trim();
+            if (campo.length() >= 2 && campo.startsWith("\"") && campo.endsWith("\"")) {
+                campo = campo.substring(1, campo.length() - 1).replace("\"\"", "\"");
+            }
+            campos[i] = campo;
+        }
+        return campos;
+    }
+
+    static Double numeroCsv(String valor, char separador) {
+        if (valor == null || valor.isEmpty()) {
+            return null;
+        }
+        double numero = Double.parseDouble(separador == ';' ? valor.replace(',', '.') : valor);
+        // parseDouble aceita "NaN" e "Infinity"
+        if (!Double.isFinite(numero)) {
+            throw new NumberFormatException("Valor não finito: " + valor);
+        }
+        return numero;
+    }
+
+    // Remove o BOM que alguns exportadores colocam na primeira linha
+    static String semBom(String linha) {
+        return !linha.isEmpty() && linha.charAt(0) == '\uFEFF' ? linha.substring(1) : linha;
+    }
+
+    static String mensagemDe(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+}
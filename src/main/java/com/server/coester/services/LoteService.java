@@ -1,23 +1,30 @@
 package com.server.coester.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.server.coester.dtos.*;
 import com.server.coester.entities.Lote;
+import com.server.coester.entities.Medicao;
+import com.server.coester.entities.ResumoDashboardUsuario;
 import com.server.coester.entities.TipoPeca;
 import com.server.coester.entities.Usuario;
 import com.server.coester.repositories.LoteRepository;
+import com.server.coester.repositories.MedicaoRepository;
 import com.server.coester.repositories.TipoPecaRepository;
 import com.server.coester.repositories.UsuarioRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @Transactional
 public class LoteService {
@@ -26,6 +33,9 @@ public class LoteService {
     @Autowired
     private LoteRepository loteRepository;
 
+    @Autowired
+    private MedicaoRepository medicaoRepository;
+
     @Autowired
     private TipoPecaRepository tipoPecaRepository;
 
@@ -37,24 +47,44 @@ public class LoteService {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private AvaliadorToleranciaCache avaliadorToleranciaCache;
+
+    @Autowired
+    private MetadadosCotasCache metadadosCotasCache;
+
+    @Autowired
+    private ResumoDashboardService resumoDashboardService;
+
+    @Autowired
+    private EstatisticaPeriodoService estatisticaPeriodoService;
+
+    @Autowired
+    private SpcService spcService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MetricasLote metricasLote;
+
+    @Autowired
+    private GeradorCodigoLote geradorCodigoLote;
+
     public List<LoteResumidoResponse> listarLotesDoUsuario() {
-        // 1. Obtém o usuário logado
-        Usuario usuario = usuarioService.getUsuarioAutenticado();
+        // 1. Obtém o id do usuário logado (do principal, sem consulta)
+        Long usuarioId = usuarioService.getUsuarioAutenticadoPrincipal().id();
 
-        // 2. Busca os lotes por este usuário (necessário método no LoteRepository)
-        // MÉTODO NO REPOSITORY NECESSÁRIO: List<Lote> findByUsuario(Usuario usuario);
-        return loteRepository.findByUsuario(usuario).stream()
+        // 2. Busca os lotes por este usuário já com o tipoPeca (uma única consulta)
+        return loteRepository.findByUsuarioIdComTipoPeca(usuarioId).stream()
                 .map(this::toLoteResumidoResponse)
                 .toList();
     }
 
     // ⭐ NOVO MÉTODO: Lista todos os lotes (Para uso do Administrador)
     public List<LoteResumidoResponse> listarTodosOsLotes() {
-        // 1. Chame o repositório para buscar todos os lotes
-        // Se TipoPeca for LAZY (como na sua entidade), você DEVE garantir que ele seja
-        // carregado aqui, ou terá um LazyInitializationException.
-        // A melhor prática seria ter um método findAllComTipoPeca() no repositório.
-        List<Lote> todosLotes = loteRepository.findAll();
+        // 1. Busca todos os lotes com o TipoPeca (LAZY) carregado no mesmo JOIN FETCH
+        List<Lote> todosLotes = loteRepository.findAllComTipoPeca();
 
         // 2. Mapeie a lista de Lote para List<LoteResumidoResponse>
         return todosLotes.stream()
@@ -67,11 +97,43 @@ public class LoteService {
         TipoPeca tipoPeca = tipoPecaRepository.findById(request.tipoPecaId())
                 .orElseThrow(() -> new RuntimeException("Tipo de peça não encontrado"));
 
-        Usuario usuario = usuarioService.getUsuarioAutenticado();
-        System.out.println(request.quantidadeAmostrasDesejada());
+        Usuario usuario = usuarioService.getReferenciaUsuarioAutenticado();
+        Lote saved = loteRepository.save(novoLote(request, tipoPeca, usuario));
+        resumoDashboardService.registrarLoteCriado(saved);
+        publicarEvento("LOTE_CRIADO", saved, null, List.of(), null);
+        estatisticaPeriodoService.registrarLoteCriado(saved.getDataCriacao(), 1);
+        return toLoteResponse(saved);
+    }
+
+    // Criação em lote (ImportacaoLotesService). Os tipos de peça chegam já carregados e validados pelo importador,
+    // então não há SELECT por lote; os INSERTs vão em batch e resumo/rollups são atualizados uma vez por chamada.
+    public List<Lote> criarLotes(List<CriarLoteRequest> requests, Map<Long, TipoPeca> tiposPeca) {
+        Usuario usuario = usuarioService.getReferenciaUsuarioAutenticado();
+
+        List<Lote> lotes = new ArrayList<>(requests.size());
+        for (CriarLoteRequest request : requests) {
+            TipoPeca tipoPeca = tiposPeca.get(request.tipoPecaId());
+            if (tipoPeca == null) {
+                throw new RuntimeException("Tipo de peça não encontrado");
+            }
+            lotes.add(novoLote(request, tipoPeca, usuario));
+        }
+
+        loteRepository.saveAll(lotes);
+        resumoDashboardService.registrarLotesCriados(lotes);
+        lotes.stream()
+                .collect(Collectors.groupingBy(lote -> lote.getDataCriacao().truncatedTo(ChronoUnit.HOURS),
+                        Collectors.counting()))
+                .forEach(estatisticaPeriodoService::registrarLotesCriados);
+        // Um evento para o bloco inteiro: um por lote encheria a fila SSE do usuário (até 500 de uma vez)
+        publicarLotesCriados(usuario.getId(), lotes.stream().map(Lote::getId).toList());
+        return lotes;
+    }
+
+    private Lote novoLote(CriarLoteRequest request, TipoPeca tipoPeca, Usuario usuario) {
         // --- Criação da Entidade ---
         Lote lote = new Lote();
-        lote.setCodigoLote(gerarCodigoLote());
+        lote.setCodigoLote(geradorCodigoLote.proximoCodigo());
         lote.setDescricao(request.descricao());
         lote.setTipoPeca(tipoPeca);
         lote.setQuantidadePecas(request.quantidadePecas());
@@ -87,52 +149,132 @@ public class LoteService {
         // 3. Define a Porcentagem de Amostragem (Calculada)
         Double porcentagem = (double) request.quantidadeAmostrasDesejada() / lote.getQuantidadePecas();
         lote.setPorcentagemAmostragem(porcentagem * 100.0); // Multiplicar por 100 para ser porcentagem
-
-        Lote saved = loteRepository.save(lote);
-        return toLoteResponse(saved);
+        return lote;
     }
 
     public Optional<LoteResponse> obterLotePorId(Long id) {
-        return loteRepository.findById(id).map(this::toLoteResponse);
+        return obterLotePorId(id, true);
+    }
+
+    // Só a existência (SELECT de uma linha pela PK), sem carregar o lote nem montar o LoteResponse
+    public boolean existeLote(Long id) {
+        return loteRepository.existsById(id);
+    }
+
+    // ETag forte do GET do lote; vazio se o lote não existe. Consulta de uma linha, sem montar o LoteResponse
+    public Optional<String> etagLote(Long id, boolean incluirMedicoes) {
+        return loteRepository.findVersoes(id)
+                .map(versoes -> "\"lote-" + id + "-" + versoes + (incluirMedicoes ? "-m" : "") + "\"");
+    }
+
+    // incluirMedicoes = false devolve o lote sem a lista de medições (usar a listagem paginada)
+    public Optional<LoteResponse> obterLotePorId(Long id, boolean incluirMedicoes) {
+        return loteRepository.findById(id)
+                .map(lote -> toLoteResponse(lote, incluirMedicoes ? listarMedicoesDoLote(lote) : List.of()));
     }
 
     public List<LoteResumidoResponse> listarLotesResumido() {
-        return loteRepository.findAll().stream()
+        return loteRepository.findAllComTipoPeca().stream()
                 .map(this::toLoteResumidoResponse)
                 .toList();
     }
 
     public List<LoteResumidoResponse> listarLotesPorStatus(String status) {
-        return loteRepository.findByStatus(status).stream()
+        return loteRepository.findByStatusComTipoPeca(status).stream()
                 .map(this::toLoteResumidoResponse)
                 .toList();
     }
 
     public List<LoteResumidoResponse> buscarLotesPorDescricao(String texto) {
-        return loteRepository.findByDescricaoContainingIgnoreCase(texto).stream()
+        return buscarLotesPorDescricao(texto, null);
+    }
+
+    // Prefixo, depois trecho (LIKE '%termo%') e por fim similaridade (pg_trgm); todas usam índice e LIMIT.
+    // Termos curtos demais para trigramas só buscam por prefixo
+    public List<LoteResumidoResponse> buscarLotesPorDescricao(String texto, Integer limite) {
+        String termo = BuscaTexto.normalizar(texto);
+        if (termo.isEmpty()) {
+            return List.of();
+        }
+        int limiteBusca = BuscaTexto.limite(limite);
+        String prefixo = BuscaTexto.prefixoLike(termo);
+
+        List<Long> porPrefixo = loteRepository.buscarIdsPorPrefixoDescricao(prefixo, limiteBusca);
+        boolean trigramas = BuscaTexto.usaTrigramas(termo);
+        List<Long> porTrecho = trigramas && porPrefixo.size() < limiteBusca
+                ? loteRepository.buscarIdsPorTrechoDescricao(termo, BuscaTexto.contemLike(termo), prefixo,
+                        limiteBusca - porPrefixo.size())
+                : List.of();
+        List<Long> porSimilaridade = trigramas && porPrefixo.size() + porTrecho.size() < limiteBusca
+                ? loteRepository.buscarIdsPorSimilaridadeDescricao(termo, limiteBusca)
+                : List.of();
+
+        List<Long> ids = BuscaTexto.combinar(List.of(porPrefixo, porTrecho, porSimilaridade), id -> id, limiteBusca);
+        return buscarLotesNaOrdem(ids).stream()
                 .map(this::toLoteResumidoResponse)
                 .toList();
     }
 
+    // Lotes com alguma medição cuja observação contém o texto (GIN trigram em lower(observacoes)).
+    // Com menos de 3 caracteres o índice não filtra nada, então o termo é recusado
+    public List<LoteResumidoResponse> buscarLotesPorObservacaoMedicao(String texto) {
+        String termo = texto == null ? "" : texto.trim();
+        if (!BuscaTexto.usaTrigramas(termo)) {
+            throw new RuntimeException("Informe pelo menos " + BuscaTexto.TAMANHO_MINIMO_TRIGRAMA + " caracteres");
+        }
+        return loteRepository.findLotesComMedicaoObservacao(termo).stream()
+                .map(this::toLoteResumidoResponse)
+                .toList();
+    }
+
+    // Lotes com alguma medição contendo exatamente estes valores (GIN jsonb_path_ops em dimensoes)
+    public List<LoteResumidoResponse> buscarLotesPorDimensoesMedicao(Map<String, Double> dimensoes) {
+        // Filtro vazio casaria com todas as medições
+        if (dimensoes == null || dimensoes.isEmpty()) {
+            throw new RuntimeException("Informe ao menos uma dimensão");
+        }
+        validarValoresFinitos(dimensoes);
+        return loteRepository.findLotesComMedicaoDimensoes(dimensoes).stream()
+                .map(this::toLoteResumidoResponse)
+                .toList();
+    }
+
+    public List<LoteResumidoResponse> listarLotesComMedicoesReprovadas() {
+        return loteRepository.findLotesComMedicoesReprovadas().stream()
+                .map(this::toLoteResumidoResponse)
+                .toList();
+    }
+
+    // Contagem por status direto da tabela medicoes (confere os contadores do lote)
+    public Map<String, Object> getEstatisticasMedicoes(Long loteId) {
+        if (!loteRepository.existsById(loteId)) {
+            throw new RuntimeException("Lote não encontrado");
+        }
+        return loteRepository.getEstatisticasDetalhadasMedicoes(loteId);
+    }
+
     public LoteResponse atualizarLote(Long id, AtualizarLoteRequest request) {
-        Lote lote = loteRepository.findById(id)
+        // Também com o lote bloqueado: o save regrava a linha inteira (contadores incluídos) e,
+        // sem o lock, uma medição concorrente seria sobrescrita com os valores lidos aqui
+        Lote lote = loteRepository.findByIdParaAtualizacao(id)
                 .orElseThrow(() -> new RuntimeException("Lote não encontrado"));
 
         lote.setDescricao(request.descricao());
         lote.setObservacoes(request.observacoes());
 
         Lote updated = loteRepository.save(lote);
+        publicarEvento("LOTE_ATUALIZADO", updated, updated.getStatus(), List.of(), null);
         return toLoteResponse(updated);
     }
 
     public void excluirLote(Long id) {
-        Lote lote = loteRepository.findById(id)
+        Lote lote = loteRepository.findByIdParaAtualizacao(id)
                 .orElseThrow(() -> new RuntimeException("Lote não encontrado"));
 
-        // 1. OBTÉM O USUÁRIO LOGADO
-        Usuario usuarioLogado = usuarioService.getUsuarioAutenticado();
-        boolean ehAdmin = usuarioLogado.getArrayRoles().contains("ADMINISTRADOR");
-        boolean ehDono = lote.getUsuario().getId().equals(usuarioLogado.getId());
+        // 1. OBTÉM O USUÁRIO LOGADO (id e roles vêm do principal)
+        UsuarioAutenticado usuarioLogado = usuarioService.getUsuarioAutenticadoPrincipal();
+        boolean ehAdmin = usuarioLogado.ehAdministrador();
+        boolean ehDono = lote.getUsuario() != null && lote.getUsuario().getId().equals(usuarioLogado.id());
 
         // 2. VERIFICAÇÃO DE PERMISSÃO
         if (!ehAdmin && (!ehDono || !"EM_ANDAMENTO".equals(lote.getStatus()))) {
@@ -142,158 +284,243 @@ public class LoteService {
 
         // 3. VERIFICAÇÃO DE DADOS (Se tem medições)
         // O service deve lidar com a exceção de negócio
-        if (!lote.getMedicoesJson().equals("[]")) {
+        if (medicaoRepository.existsByLoteId(lote.getId())) {
             throw new RuntimeException("Não é possível excluir lote com medições");
         }
 
         // 4. DELEÇÃO
         loteRepository.delete(lote);
+        resumoDashboardService.registrarLoteExcluido(lote);
+        publicarEvento("LOTE_EXCLUIDO", lote, lote.getStatus(), List.of(), null);
+        estatisticaPeriodoService.registrarLoteCriado(lote.getDataCriacao(), -1);
+        estatisticaPeriodoService.registrarConclusao(lote.getDataConclusao(), lote.getStatus(), taxaContabilizada(lote), -1);
     }
 
     public LoteResponse adicionarMedicao(AdicionarMedicaoRequest request) {
-        System.out.println("=== INICIANDO ADIÇÃO DE MEDIÇÃO ===");
-        System.out.println("Lote ID: " + request.loteId());
-        // REMOVIDO: System.out.println("Peça Número: " + request.pecaNumero());
-        System.out.println("Dimensões recebidas: " + request.dimensoes());
-
-        try {
-            Lote lote = loteRepository.findById(request.loteId())
-                    .orElseThrow(() -> new RuntimeException("Lote não encontrado"));
-
-            System.out.println("Lote encontrado: " + lote.getId());
-            System.out.println("Tipo de Peça: " + lote.getTipoPeca().getNome());
-
-            TipoPeca tipoPeca = lote.getTipoPeca();
+        // SELECT ... FOR UPDATE: escritas no mesmo lote são serializadas até o commit (vale entre nós)
+        Lote lote = metricasLote.medir("carregar_lote", () -> loteRepository.findByIdParaAtualizacao(request.loteId())
+                .orElseThrow(() -> new RuntimeException("Lote não encontrado")));
+
+        TipoPeca tipoPeca = lote.getTipoPeca();
+        String statusAnterior = lote.getStatus();
+        Double taxaAnterior = lote.getTaxaAprovacao();
+
+        // 1. VALIDAR dimensões antes de processar
+        //validarDimensoesMedicao(request.dimensoes(), tipoPeca);
+        validarValoresFinitos(request.dimensoes());
+
+        // 2. LÓGICA DE GERAÇÃO AUTOMÁTICA DO pecaNumero (sempre único: não é preciso checar peça já medida)
+        Integer proximoPecaNumero = reservarPecaNumeros(lote, 1);
+
+        // 3. CALCULAR STATUS baseado nos metadados
+        String status = metricasLote.medir("avaliacao", () -> calcularStatusMedicao(request.dimensoes(), tipoPeca));
+
+        // 4. Criar medição (INSERT de uma única linha em "medicoes")
+        Medicao novaMedicao = novaMedicao(lote, proximoPecaNumero, request.dimensoes(), request.observacoes(), status);
+        // saveAndFlush: o INSERT sai dentro da etapa, senão o tempo de escrita cairia no commit
+        metricasLote.executar("gravacao", () -> medicaoRepository.saveAndFlush(novaMedicao));
+
+        metricasLote.executar("estatisticas", () -> {
+            spcService.registrarMedicoes(lote, List.of(novaMedicao.getDimensoes()));
+            estatisticaPeriodoService.registrarMedicoes(novaMedicao.getData(), 1, "APROVADO".equals(status) ? 1 : 0);
+            aplicarMedicaoNasEstatisticas(lote, status, 1);
+            resumoDashboardService.registrarAlteracao(lote, statusAnterior, taxaAnterior);
+        });
 
-            // 1. VALIDAR dimensões antes de processar
-            System.out.println("=== VALIDAÇÃO DE DIMENSÕES ===");
-            //validarDimensoesMedicao(request.dimensoes(), tipoPeca);
-            System.out.println("Validação passou!");
+        Lote updated = metricasLote.medir("gravacao", () -> loteRepository.saveAndFlush(lote));
+        metricasLote.registrarMedicoes(updated, tipoPeca,
+                "APROVADO".equals(status) ? 1 : 0, "APROVADO".equals(status) ? 0 : 1);
+        publicarEvento("MEDICOES_ADICIONADAS", updated, statusAnterior, List.of(toMedicaoResponse(novaMedicao)), null);
+        log.debug("Medição adicionada: lote={} medicao={} peca={} status={} amostras={}",
+                updated.getId(), novaMedicao.getId(), proximoPecaNumero, status, updated.getQuantidadeAmostras());
 
-            List<Map<String, Object>> medicoes = parseMedicoesJson(lote.getMedicoesJson());
-            System.out.println("Medições existentes: " + medicoes.size());
+        return metricasLote.medir("resposta", () -> toLoteResponse(updated));
+    }
 
-            // 2. LÓGICA DE GERAÇÃO AUTOMÁTICA DO pecaNumero
-            Integer proximoPecaNumero = gerarProximoPecaNumero(medicoes);
-            System.out.println("Próxima Peça Número gerada: " + proximoPecaNumero);
 
-            // 3. REMOVER: A verificação de peça já medida não é mais necessária,
-            // pois o número gerado é sempre único.
-        /*
-        boolean pecaJaMedida = medicoes.stream()
-                .anyMatch(med -> request.pecaNumero().equals(med.get("pecaNumero")));
+    // Várias medições de uma vez: um único carregamento do lote, um saveAll e um único UPDATE do lote
+    public AdicionarMedicoesLoteResponse adicionarMedicoes(Long loteId, List<AdicionarMedicaoRequestParameter> requests) {
+        Lote lote = metricasLote.medir("carregar_lote", () -> loteRepository.findByIdParaAtualizacao(loteId)
+                .orElseThrow(() -> new RuntimeException("Lote não encontrado")));
 
-        if (pecaJaMedida) {
-            System.out.println("ERRO: Peça já medida");
-            throw new RuntimeException("Peça número " + request.pecaNumero() + " já foi medida");
+        TipoPeca tipoPeca = lote.getTipoPeca();
+        String statusAnterior = lote.getStatus();
+        Double taxaAnterior = lote.getTaxaAprovacao();
+        for (AdicionarMedicaoRequestParameter request : requests) {
+            validarValoresFinitos(request.dimensoes());
         }
-        */
-
-            // 4. CALCULAR STATUS baseado nos metadados
-            System.out.println("=== CÁLCULO DE STATUS ===");
-            String status = calcularStatusMedicao(request.dimensoes(), tipoPeca);
-            System.out.println("Status calculado: " + status);
-
-            // 5. Criar medição
-            Map<String, Object> novaMedicao = new HashMap<>();
-            novaMedicao.put("id", gerarNovoId(medicoes));
-            novaMedicao.put("data", LocalDateTime.now().toString());
-            novaMedicao.put("pecaNumero", proximoPecaNumero); // USANDO O VALOR GERADO
-            novaMedicao.put("dimensoes", request.dimensoes());
-            novaMedicao.put("observacoes", request.observacoes());
-            novaMedicao.put("status", status);
-
-            medicoes.add(novaMedicao);
-            lote.setMedicoesJson(toJson(medicoes));
-
-            System.out.println("=== RECALCULO DE ESTATÍSTICAS ===");
-            recalcularEstatisticas(lote, medicoes);
-
-            Lote updated = loteRepository.save(lote);
-            System.out.println("Medição salva com sucesso! ID: " + updated.getId());
+        int primeiroPecaNumero = reservarPecaNumeros(lote, requests.size());
+
+        List<Medicao> novasMedicoes = metricasLote.medir("avaliacao", () -> {
+            List<Medicao> avaliadas = new ArrayList<>(requests.size());
+            int pecaNumero = primeiroPecaNumero;
+            for (AdicionarMedicaoRequestParameter request : requests) {
+                String status = calcularStatusMedicao(request.dimensoes(), tipoPeca);
+                avaliadas.add(novaMedicao(lote, pecaNumero++, request.dimensoes(), request.observacoes(), status));
+            }
+            return avaliadas;
+        });
+        long aprovadas = novasMedicoes.stream().filter(medicao -> "APROVADO".equals(medicao.getStatus())).count();
 
-            return toLoteResponse(updated);
+        metricasLote.executar("gravacao", () -> medicaoRepository.saveAllAndFlush(novasMedicoes));
+        metricasLote.executar("estatisticas", () -> {
+            for (Medicao medicao : novasMedicoes) {
+                aplicarMedicaoNasEstatisticas(lote, medicao.getStatus(), 1);
+            }
+            spcService.registrarMedicoes(lote, novasMedicoes.stream().map(Medicao::getDimensoes).toList());
+            // Cada medição no período da sua data (um bloco pode atravessar a virada da hora)
+            novasMedicoes.stream()
+                    .collect(Collectors.groupingBy(medicao -> medicao.getData().truncatedTo(ChronoUnit.HOURS)))
+                    .forEach((hora, medicoes) -> estatisticaPeriodoService.registrarMedicoes(hora, medicoes.size(),
+                            medicoes.stream().filter(medicao -> "APROVADO".equals(medicao.getStatus())).count()));
+            resumoDashboardService.registrarAlteracao(lote, statusAnterior, taxaAnterior);
+        });
+        Lote updated = metricasLote.medir("gravacao", () -> loteRepository.saveAndFlush(lote));
+        metricasLote.registrarMedicoes(updated, tipoPeca, aprovadas, novasMedicoes.size() - aprovadas);
+        log.debug("Medições adicionadas: lote={} quantidade={} aprovadas={} amostras={}",
+                updated.getId(), novasMedicoes.size(), aprovadas, updated.getQuantidadeAmostras());
+
+        return metricasLote.medir("resposta", () -> {
+            publicarEvento("MEDICOES_ADICIONADAS", updated, statusAnterior,
+                    novasMedicoes.stream().map(this::toMedicaoResponse).toList(), null);
+            return toAdicionarMedicoesLoteResponse(updated, novasMedicoes);
+        });
+    }
 
-        } catch (Exception e) {
-            System.out.println("ERRO CRÍTICO: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
-        }
+    private AdicionarMedicoesLoteResponse toAdicionarMedicoesLoteResponse(Lote updated, List<Medicao> novasMedicoes) {
+        return new AdicionarMedicoesLoteResponse(
+                updated.getId(),
+                updated.getQuantidadeAmostras(),
+                updated.getPecasAprovadas(),
+                updated.getPecasReprovadas(),
+                updated.getTaxaAprovacao(),
+                updated.getStatus(),
+                novasMedicoes.stream()
+                        .map(m -> new MedicaoResumoResponse(m.getId(), m.getPecaNumero(), m.getStatus()))
+                        .toList()
+        );
     }
 
+    private Medicao novaMedicao(Lote lote, Integer pecaNumero, Map<String, Double> dimensoes,
+                                String observacoes, String status) {
+        Medicao medicao = new Medicao();
+        medicao.setLote(lote);
+        medicao.setPecaNumero(pecaNumero);
+        medicao.setDimensoes(dimensoes);
+        medicao.setObservacoes(observacoes);
+        medicao.setStatus(status);
+        return medicao;
+    }
 
     // LoteService.java (Adicione este método auxiliar)
 
-    private Integer gerarProximoPecaNumero(List<Map<String, Object>> medicoes) {
-        if (medicoes.isEmpty()) {
-            return 1;
-        }
+    // Publicado dentro da transação: o EventosLoteService só envia aos assinantes (SSE) depois do commit
+    private void publicarEvento(String tipo, Lote lote, String statusAnterior,
+                                List<MedicaoResponse> medicoes, Long medicaoRemovidaId) {
+        Long usuarioId = lote.getUsuario() != null ? lote.getUsuario().getId() : null;
+        eventPublisher.publishEvent(new EventosLoteService.EventoLote(usuarioId, new EventoLoteResponse(
+                tipo,
+                lote.getId(),
+                lote.getCodigoLote(),
+                statusAnterior,
+                lote.getStatus(),
+                lote.getQuantidadeAmostras(),
+                lote.getPecasAprovadas(),
+                lote.getPecasReprovadas(),
+                lote.getTaxaAprovacao(),
+                medicoes,
+                medicaoRemovidaId,
+                List.of()
+        )));
+    }
 
-        // Encontra o maior 'pecaNumero' existente
-        Integer maxPecaNumero = medicoes.stream()
-                // Filtra para garantir que o campo exista e seja Number
-                .filter(med -> med.get("pecaNumero") instanceof Number)
-                // Converte para Integer
-                .map(med -> ((Number) med.get("pecaNumero")).intValue())
-                // Encontra o máximo
-                .max(Integer::compareTo)
-                .orElse(0); // Se houver erro ou a lista for vazia, retorna 0 (para retornar 1 no final)
+    private void publicarLotesCriados(Long usuarioId, List<Long> loteIds) {
+        eventPublisher.publishEvent(new EventosLoteService.EventoLote(usuarioId, new EventoLoteResponse(
+                "LOTES_CRIADOS", null, null, null, null, null, null, null, null, List.of(), null, loteIds)));
+    }
 
-        return maxPecaNumero + 1;
+    // Taxa que a conclusão somou no rollup por período (a atual em lotes concluídos antes da coluna)
+    private Double taxaContabilizada(Lote lote) {
+        return lote.getTaxaAprovacaoConclusao() != null ? lote.getTaxaAprovacaoConclusao() : lote.getTaxaAprovacao();
     }
 
-    // ADICIONE ESTE MÉTODO PARA GERAR IDs ÚNICOS
-    private Long gerarNovoId(List<Map<String, Object>> medicoes) {
-        if (medicoes.isEmpty()) {
-            return 1L;
+    // Reserva 'quantidade' números de peça consecutivos e devolve o primeiro.
+    // Deve ser chamado com o lote bloqueado (findByIdParaAtualizacao): o contador é gravado junto com o lote.
+    private Integer reservarPecaNumeros(Lote lote, int quantidade) {
+        // Medições legadas ainda em medicoes_json (migração rodando noutro nó): os números delas ainda não estão
+        // na tabela, então uma medição nova colidiria com elas e deixaria o lote sem migrar
+        if (lote.getMedicoesJson() != null && !lote.getMedicoesJson().isBlank() && !"[]".equals(lote.getMedicoesJson())) {
+            throw new RuntimeException("Lote com medições legadas ainda não migradas");
         }
-
-        // Encontrar o maior ID atual
-        Long maxId = medicoes.stream()
-                .map(med -> ((Number) med.get("id")).longValue())
-                .max(Long::compareTo)
-                .orElse(0L);
-
-        return maxId + 1L;
+        Integer ultimo = lote.getUltimoPecaNumero();
+        if (ultimo == null) {
+            // Lotes anteriores ao contador: parte do maior número já gravado
+            ultimo = medicaoRepository.findMaxPecaNumeroByLoteId(lote.getId());
+        }
+        lote.setUltimoPecaNumero(ultimo + quantidade);
+        return ultimo + 1;
     }
 
     public List<MedicaoResponse> listarMedicoes(Long loteId) {
         Lote lote = loteRepository.findById(loteId)
                 .orElseThrow(() -> new RuntimeException("Lote não encontrado"));
-        System.out.println(lote);
-        return parseMedicoesFromJson(lote.getMedicoesJson());
+        return listarMedicoesDoLote(lote);
+    }
+
+    public static final int TAMANHO_PAGINA_MAXIMO = 500;
+
+    // Uma página de medições sem materializar o lote inteiro: busca tamanho + 1 para saber se há próxima
+    public PaginaMedicoesResponse listarMedicoesPaginadas(Long loteId, Integer apos, int tamanho, String status) {
+        if (!loteRepository.existsById(loteId)) {
+            throw new RuntimeException("Lote não encontrado");
+        }
+        if (status != null && !"APROVADO".equals(status) && !"REPROVADO".equals(status)) {
+            throw new IllegalArgumentException("Status deve ser APROVADO ou REPROVADO");
+        }
+
+        int tamanhoPagina = Math.max(1, Math.min(tamanho, TAMANHO_PAGINA_MAXIMO));
+        int cursor = apos != null ? apos : 0;
+        Limit limite = Limit.of(tamanhoPagina + 1);
+
+        List<Medicao> medicoes = status == null
+                ? medicaoRepository.findByLoteIdAndPecaNumeroGreaterThanOrderByPecaNumeroAsc(loteId, cursor, limite)
+                : medicaoRepository.findByLoteIdAndStatusAndPecaNumeroGreaterThanOrderByPecaNumeroAsc(loteId, status, cursor, limite);
+
+        boolean temMais = medicoes.size() > tamanhoPagina;
+        List<MedicaoResponse> pagina = medicoes.stream()
+                .limit(tamanhoPagina)
+                .map(this::toMedicaoResponse)
+                .toList();
+        Integer proximoCursor = temMais ? pagina.get(pagina.size() - 1).pecaNumero() : null;
+
+        return new PaginaMedicoesResponse(pagina, proximoCursor, temMais);
     }
 
     public LoteResponse removerMedicao(Long loteId, Long medicaoId) {
-        Lote lote = loteRepository.findById(loteId)
+        Lote lote = loteRepository.findByIdParaAtualizacao(loteId)
                 .orElseThrow(() -> new RuntimeException("Lote não encontrado"));
 
-        List<Map<String, Object>> medicoes = parseMedicoesJson(lote.getMedicoesJson());
+        Medicao medicao = medicaoRepository.findByIdAndLoteId(medicaoId, loteId)
+                .orElseThrow(() -> new RuntimeException("Medição não encontrada"));
 
-        // CORREÇÃO: Usar equals para comparar Long
-        boolean removido = medicoes.removeIf(med -> {
-            Object idObj = med.get("id");
-            if (idObj instanceof Number) {
-                return medicaoId.equals(((Number) idObj).longValue());
-            }
-            return false;
-        });
+        String statusAnterior = lote.getStatus();
+        Double taxaAnterior = lote.getTaxaAprovacao();
 
-        if (!removido) {
-            throw new RuntimeException("Medição não encontrada");
-        }
-
-        lote.setMedicoesJson(toJson(medicoes));
-        recalcularEstatisticas(lote, medicoes);
+        medicaoRepository.delete(medicao);
+        aplicarMedicaoNasEstatisticas(lote, medicao.getStatus(), -1);
+        spcService.recalcular(lote);
+        estatisticaPeriodoService.registrarMedicoes(medicao.getData(), -1, "APROVADO".equals(medicao.getStatus()) ? -1 : 0);
 
         Lote updated = loteRepository.save(lote);
+        resumoDashboardService.registrarAlteracao(updated, statusAnterior, taxaAnterior);
+        publicarEvento("MEDICAO_REMOVIDA", updated, statusAnterior, List.of(), medicao.getId());
         return toLoteResponse(updated);
     }
 
     // STATUS METHODS
 
     public Boolean concluirLote(Long id) {
-        Lote lote = loteRepository.findById(id)
+        Lote lote = loteRepository.findByIdParaAtualizacao(id)
                 .orElseThrow(() -> new RuntimeException("Lote não encontrado"));
 
         // 2. VERIFICAÇÃO DE PRÉ-REQUISITOS
@@ -312,82 +539,123 @@ public class LoteService {
         // 4. ATUALIZAÇÃO DO STATUS FINAL E DATA DE CONCLUSÃO
         String statusFinal = aprovado ? "APROVADO" : "REPROVADO";
 
+        String statusAnterior = lote.getStatus();
+        LocalDateTime dataConclusaoAnterior = lote.getDataConclusao();
+        Double taxaConclusaoAnterior = taxaContabilizada(lote);
+
         lote.setStatus(statusFinal);
         lote.setDataConclusao(LocalDateTime.now());
+        lote.setTaxaAprovacaoConclusao(taxaAprovacao);
 
         loteRepository.save(lote);
+        resumoDashboardService.registrarAlteracao(lote, statusAnterior, taxaAprovacao);
+        publicarEvento("STATUS_ALTERADO", lote, statusAnterior, List.of(), null);
+        // Concluir de novo um lote já concluído move a conclusão para o período atual
+        estatisticaPeriodoService.registrarConclusao(dataConclusaoAnterior, statusAnterior, taxaConclusaoAnterior, -1);
+        estatisticaPeriodoService.registrarConclusao(lote.getDataConclusao(), statusFinal, taxaAprovacao, 1);
 
         // 5. RETORNA O RESULTADO DA APROVAÇÃO
         return aprovado;
     }
+    // Recontagem completa das estatísticas a partir das medições gravadas.
+    // Operação de reparo: o fluxo normal mantém os contadores de forma incremental.
+    public LoteResponse repararEstatisticas(Long id) {
+        Lote lote = loteRepository.findByIdParaAtualizacao(id)
+                .orElseThrow(() -> new RuntimeException("Lote não encontrado"));
+
+        String statusAnterior = lote.getStatus();
+        Double taxaAnterior = lote.getTaxaAprovacao();
+
+        recalcularEstatisticas(lote);
+        // O contador de peças volta a partir do maior número gravado (0 se não há medições)
+        lote.setUltimoPecaNumero(medicaoRepository.findMaxPecaNumeroByLoteId(lote.getId()));
+        spcService.recalcular(lote);
+
+        Lote updated = loteRepository.save(lote);
+        resumoDashboardService.registrarAlteracao(updated, statusAnterior, taxaAnterior);
+        publicarEvento("LOTE_ATUALIZADO", updated, statusAnterior, List.of(), null);
+        return toLoteResponse(updated);
+    }
+
     public LoteResponse reabrirLote(Long id) {
-        Lote lote = loteRepository.findById(id)
+        Lote lote = loteRepository.findByIdParaAtualizacao(id)
                 .orElseThrow(() -> new RuntimeException("Lote não encontrado"));
 
+        String statusAnterior = lote.getStatus();
+        Double taxaAnterior = lote.getTaxaAprovacao();
+        estatisticaPeriodoService.registrarConclusao(lote.getDataConclusao(), statusAnterior, taxaContabilizada(lote), -1);
+
         lote.setStatus("EM_ANDAMENTO");
         lote.setDataConclusao(null);
+        lote.setTaxaAprovacaoConclusao(null);
 
         Lote updated = loteRepository.save(lote);
+        resumoDashboardService.registrarAlteracao(updated, statusAnterior, taxaAnterior);
+        publicarEvento("STATUS_ALTERADO", updated, statusAnterior, List.of(), null);
         return toLoteResponse(updated);
     }
 
     // DashboardService
+    // Lê o resumo materializado do usuário: uma linha por PK + os lotes recentes por id,
+    // em vez de agregar todos os lotes do usuário a cada acesso
     public DashboardResponse obterDashboard() {
 
-        // 1. CHAMA O MÉTODO QUE RETORNA LISTA E GARANTE QUE A LISTA TEM UM ELEMENTO
-        List<Object[]> resultados = loteRepository.getDashboardEstatisticasByUsuario(usuarioService.getUsuarioAutenticado());
-
-        // Se a lista estiver vazia (sem lotes para o usuário), use um array vazio para evitar erro.
-        Object[] estatisticas;
-        if (resultados.isEmpty()) {
-            // Retorna um array de zeros para evitar NullPointer
-            estatisticas = new Object[] {0L, 0L, 0L, 0.0};
-        } else {
-            // ESTA LINHA ONDE ESTAVA O PROBLEMA FOI SUBSTITUÍDA PELO .get(0)
-            estatisticas = resultados.get(0);
-        }
-
-        List<Lote> lotesRecentes = loteRepository.findLotesRecentesByUsuario(usuarioService.getUsuarioAutenticado());
+        Long usuarioId = usuarioService.getUsuarioAutenticadoPrincipal().id();
+        ResumoDashboardUsuario resumo = resumoDashboardService.obterResumo(usuarioId);
 
-        // 2. TRATAMENTO DOS VALORES
-        // Adicionado checagem de NULL para segurança, especialmente no índice [3]
-        Long totalLotes = estatisticas[0] != null ? ((Number) estatisticas[0]).longValue() : 0L;
-        Long lotesEmAndamento = estatisticas[1] != null ? ((Number) estatisticas[1]).longValue() : 0L;
-        Long lotesConcluidos = estatisticas[2] != null ? ((Number) estatisticas[2]).longValue() : 0L;
-        Double taxaAprovacaoGeral = estatisticas[3] != null ? ((Number) estatisticas[3]).doubleValue() : 0.0;
+        long lotesConcluidos = resumo.getLotesConcluidos();
+        Double taxaAprovacaoGeral = lotesConcluidos > 0
+                ? resumo.getSomaTaxaAprovacaoConcluidos() / lotesConcluidos
+                : 0.0;
 
-        // Como seu DTO anterior esperava 5 argumentos, e a query só tem 4,
-        // defina o quinto (tempoMedio) explicitamente.
+        // O tempo médio de medição não é calculado (mesmo valor do DTO anterior)
         Double tempoMedioMedicaoMinutos = 0.0;
 
         return new DashboardResponse(
-                totalLotes,
-                lotesEmAndamento,
+                resumo.getTotalLotes(),
+                resumo.getLotesEmAndamento(),
                 lotesConcluidos,
                 taxaAprovacaoGeral,
-                tempoMedioMedicaoMinutos, // O quinto argumento numérico
-                lotesRecentes.stream()
+                tempoMedioMedicaoMinutos,
+                buscarLotesNaOrdem(resumo.getLotesRecentesIds()).stream()
                         .map(this::toLoteResumidoResponse)
                         .toList()
         );
     }
 
+    // Carrega os lotes (com tipoPeca) na ordem dos ids recebidos: recentes do dashboard, ranking da busca
+    private List<Lote> buscarLotesNaOrdem(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Lote> porId = loteRepository.findByIdInComTipoPeca(ids).stream()
+                .collect(Collectors.toMap(Lote::getId, lote -> lote));
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     public LoteResponse recomecarLote(Long id) {
-        Lote lote = loteRepository.findById(id)
+        Lote lote = loteRepository.findByIdParaAtualizacao(id)
                 .orElseThrow(() -> new RuntimeException("Lote não encontrado"));
 
-        // 1. OBTÉM O USUÁRIO LOGADO
-        Usuario usuarioLogado = usuarioService.getUsuarioAutenticado();
+        String statusAnterior = lote.getStatus();
+        Double taxaAnterior = lote.getTaxaAprovacao();
 
         // --- RESET DOS DADOS ---
 
-        // 3. Zera o campo de medições (deixa vazio)
-        lote.setMedicoesJson("[]");
+        // 3. Apaga as medições do lote (descontando-as antes do rollup por período)
+        estatisticaPeriodoService.descontarMedicoesDoLote(lote.getId());
+        estatisticaPeriodoService.registrarConclusao(lote.getDataConclusao(), statusAnterior, taxaContabilizada(lote), -1);
+        medicaoRepository.deleteByLoteId(lote.getId());
+        spcService.limpar(lote.getId());
 
         // 4. Zera os contadores
         lote.setQuantidadeAmostras(0);
         lote.setPecasAprovadas(0);
         lote.setPecasReprovadas(0);
+        lote.setUltimoPecaNumero(0);
 
         // 5. Zera as estatísticas
         lote.setTaxaAprovacao(0.0);
@@ -395,71 +663,55 @@ public class LoteService {
         // 6. Reseta o status para EM_ANDAMENTO
         lote.setStatus("EM_ANDAMENTO");
         lote.setDataConclusao(null); // Remove data de conclusão, se houver
+        lote.setTaxaAprovacaoConclusao(null);
 
         // 7. Salva e retorna
         Lote updated = loteRepository.save(lote);
+        resumoDashboardService.registrarAlteracao(updated, statusAnterior, taxaAnterior);
+        publicarEvento("LOTE_RECOMECADO", updated, statusAnterior, List.of(), null);
         return toLoteResponse(updated);
     }
     // PRIVATE METHODS
 
-    private String gerarCodigoLote() {
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        return "LOTE-" + timestamp.substring(timestamp.length() - 6);
-    }
-
     private Integer calcularAmostragemAutomatica(Integer quantidadeTotal) {
         if (quantidadeTotal <= 50) return quantidadeTotal;
         if (quantidadeTotal <= 500) return Math.max(50, quantidadeTotal / 10);
         return Math.max(80, quantidadeTotal / 20);
     }
 
-    private String calcularStatusMedicao(Map<String, Double> dimensoesMedidas, TipoPeca tipoPeca) {
+    // Os métodos de cálculo/conversão package-private abaixo também são medidos pelos benchmarks (src/jmh)
+    String calcularStatusMedicao(Map<String, Double> dimensoesMedidas, TipoPeca tipoPeca) {
         try {
-            List<CotaMetadata> cotasEsperadas = parseMetadadosCotas(tipoPeca.getMetadadosCotas());
-
-            // 1. Verificar se todas as cotas obrigatórias foram preenchidas
-            for (CotaMetadata cotaEsperada : cotasEsperadas) {
-                String nomeCota = cotaEsperada.nome();
-                if (!dimensoesMedidas.containsKey(nomeCota)) {
-                    return "REPROVADO"; // Cota obrigatória não preenchida
-                }
-            }
-
-            // 2. Verificar tolerâncias de cada cota
-            for (CotaMetadata cotaEsperada : cotasEsperadas) {
-                String nomeCota = cotaEsperada.nome();
-                Double valorMedido = dimensoesMedidas.get(nomeCota);
-                Double valorPadrao = cotaEsperada.valorPadrao();
-                Double tolerancia = cotaEsperada.tolerancia();
-
-                if (valorMedido == null || valorPadrao == null || tolerancia == null) {
-                    continue; // Pula se não tem dados suficientes
-                }
-
-                double diferenca = Math.abs(valorMedido - valorPadrao);
-                if (diferenca > tolerancia) {
-                    return "REPROVADO"; // Fora da tolerância
-                }
-            }
-
-            return "APROVADO";
+            // Avaliador compilado e cacheado por TipoPeca: sem parse de JSON a cada medição
+            return avaliadorToleranciaCache.obter(tipoPeca).avaliar(dimensoesMedidas);
 
         } catch (Exception e) {
-            System.err.println("Erro na validação: " + e.getMessage());
+            log.warn("Erro ao avaliar medição do tipo de peça {}: {}", tipoPeca.getId(), e.getMessage());
             return "REPROVADO"; // Em caso de erro, reprova por segurança
         }
     }
 
-    private void recalcularEstatisticas(Lote lote, List<Map<String, Object>> medicoes) {
-        long aprovadas = medicoes.stream()
-                .filter(m -> "APROVADO".equals(m.get("status")))
-                .count();
+    void recalcularEstatisticas(Lote lote) {
+        // Contagem feita no banco: não é preciso carregar as medições
+        long aprovadas = medicaoRepository.countByLoteIdAndStatus(lote.getId(), "APROVADO");
 
-        int amostrasReais = medicoes.size();
+        int amostrasReais = (int) medicaoRepository.countByLoteId(lote.getId());
 
+        atualizarEstatisticas(lote, amostrasReais, (int) aprovadas);
+    }
+
+    // Modo incremental (O(1)): delta = +1 ao adicionar uma medição, -1 ao remover
+    void aplicarMedicaoNasEstatisticas(Lote lote, String statusMedicao, int delta) {
+        int amostrasReais = lote.getQuantidadeAmostras() + delta;
+        int aprovadas = lote.getPecasAprovadas() + ("APROVADO".equals(statusMedicao) ? delta : 0);
+
+        atualizarEstatisticas(lote, amostrasReais, aprovadas);
+    }
+
+    private void atualizarEstatisticas(Lote lote, int amostrasReais, int aprovadas) {
         lote.setQuantidadeAmostras(amostrasReais);
-        lote.setPecasAprovadas((int) aprovadas);
-        lote.setPecasReprovadas(amostrasReais - (int) aprovadas);
+        lote.setPecasAprovadas(aprovadas);
+        lote.setPecasReprovadas(amostrasReais - aprovadas);
 
         if (amostrasReais > 0) {
             lote.setTaxaAprovacao((double) aprovadas / amostrasReais * 100);
@@ -491,7 +743,10 @@ public class LoteService {
 
     // CONVERSION METHODS (CORRIGIDO)
     private LoteResponse toLoteResponse(Lote lote) {
-        List<MedicaoResponse> medicoes = parseMedicoesFromJson(lote.getMedicoesJson());
+        return toLoteResponse(lote, listarMedicoesDoLote(lote));
+    }
+
+    LoteResponse toLoteResponse(Lote lote, List<MedicaoResponse> medicoes) {
 
         // Calcula a porcentagem com base no valor DESEJADO (meta)
         Double porcentagem = (double) lote.getQuantidadeAmostrasDesejada() / lote.getQuantidadePecas() * 100.0;
@@ -522,10 +777,8 @@ public class LoteService {
                 lote.getId(),
                 lote.getCodigoLote(),
                 lote.getDescricao(),
-                // O quarto argumento deve ser um objeto TipoPecaResponse.
-                // A forma de criá-lo depende da definição de TipoPecaResponse.
-                // Exemplo, assumindo que ele tenha um construtor que aceita a entidade TipoPeca:
-                new TipoPecaResponse(lote.getTipoPeca()), // Ajuste conforme necessário
+                // O quarto argumento deve ser um objeto TipoPecaResponse (cotas vindas do cache)
+                toTipoPecaResponse(lote.getTipoPeca()),
                 lote.getQuantidadePecas(),
                 lote.getQuantidadeAmostrasDesejada(), // Mapeado para 'quantidadeAmostrasDesejada'
                 lote.getPorcentagemAmostragem(), // Argumento adicionado
@@ -538,73 +791,29 @@ public class LoteService {
     }
 
     private TipoPecaResponse toTipoPecaResponse(TipoPeca tipoPeca) {
-        List<CotaMetadata> metadados = parseMetadadosCotas(tipoPeca.getMetadadosCotas());
-
-        return new TipoPecaResponse(
-                tipoPeca.getId(),
-                tipoPeca.getNome(),
-                tipoPeca.getDescricao(),
-                metadados
-        );
+        return new TipoPecaResponse(tipoPeca, metadadosCotasCache.obter(tipoPeca));
     }
 
-    private List<Map<String, Object>> parseMedicoesJson(String json) {
-        try {
-            return objectMapper.readValue(json, List.class);
-        } catch (Exception e) {
-            return new ArrayList<>();
-        }
-    }
-
-    private List<MedicaoResponse> parseMedicoesFromJson(String medicoesJson) {
-        if (medicoesJson == null || medicoesJson.trim().isEmpty()) {
-            return List.of();
-        }
-
-        try {
-            objectMapper.registerModule(new JavaTimeModule());
-            List<Map<String, Object>> medicoesMap = objectMapper.readValue(medicoesJson, List.class);
-
-            return medicoesMap.stream()
-                    .map(this::mapToMedicaoResponse)
-                    .toList();
-
-        } catch (Exception e) {
-            return List.of();
-        }
+    private List<MedicaoResponse> listarMedicoesDoLote(Lote lote) {
+        return medicaoRepository.findByLoteIdOrderByPecaNumeroAsc(lote.getId()).stream()
+                .map(this::toMedicaoResponse)
+                .toList();
     }
 
-    private MedicaoResponse mapToMedicaoResponse(Map<String, Object> medicaoMap) {
+    MedicaoResponse toMedicaoResponse(Medicao medicao) {
         return new MedicaoResponse(
-                ((Number) medicaoMap.get("id")).longValue(),
-                LocalDateTime.parse(medicaoMap.get("data").toString()),
-                ((Number) medicaoMap.get("pecaNumero")).intValue(),
-                (Map<String, Double>) medicaoMap.get("dimensoes"),
-                (String) medicaoMap.get("status"),
-                (String) medicaoMap.get("observacoes")
+                medicao.getId(),
+                medicao.getData(),
+                medicao.getPecaNumero(),
+                medicao.getDimensoes(),
+                medicao.getStatus(),
+                medicao.getObservacoes()
         );
     }
 
-    private List<CotaMetadata> parseMetadadosCotas(String metadadosJson) {
-        if (metadadosJson == null || metadadosJson.trim().isEmpty()) {
-            return List.of();
-        }
-
-        try {
-            Map<String, Object> metadadosMap = objectMapper.readValue(metadadosJson, Map.class);
-            List<Map<String, Object>> dimensoesMap = (List<Map<String, Object>>) metadadosMap.get("dimensoes");
-
-            return dimensoesMap.stream()
-                    .map(this::mapToCotaMetadata)
-                    .toList();
-
-        } catch (Exception e) {
-            return List.of();
-        }
-    }
-
     public void validarDimensoesMedicao(Map<String, Double> dimensoes, TipoPeca tipoPeca) {
-        List<CotaMetadata> cotasEsperadas = parseMetadadosCotas(tipoPeca.getMetadadosCotas());
+        AvaliadorTolerancia avaliador = avaliadorToleranciaCache.obter(tipoPeca);
+        validarValoresFinitos(dimensoes);
 
         // Validar tipos de dados
         for (Map.Entry<String, Double> dimensao : dimensoes.entrySet()) {
@@ -612,15 +821,15 @@ public class LoteService {
             Double valor = dimensao.getValue();
 
             // Encontrar a cota correspondente nos metadados
-            CotaMetadata cotaEsperada = cotasEsperadas.stream()
-                    .filter(c -> c.nome().equals(nomeDimensao))
-                    .findFirst()
-                    .orElseThrow(() -> new RuntimeException("Dimensão '" + nomeDimensao + "' não é válida para este tipo de peça"));
+            int indiceCota = avaliador.indiceDe(nomeDimensao);
+            if (indiceCota < 0) {
+                throw new RuntimeException("Dimensão '" + nomeDimensao + "' não é válida para este tipo de peça");
+            }
 
             // Validar valor mínimo/máximo baseado no valor padrão e tolerância
-            if (cotaEsperada.valorPadrao() != null && cotaEsperada.tolerancia() != null) {
-                double valorMinimo = cotaEsperada.valorPadrao() - cotaEsperada.tolerancia();
-                double valorMaximo = cotaEsperada.valorPadrao() + cotaEsperada.tolerancia();
+            if (avaliador.temTolerancia(indiceCota)) {
+                double valorMinimo = avaliador.limiteInferior(indiceCota);
+                double valorMaximo = avaliador.limiteSuperior(indiceCota);
 
                 if (valor < valorMinimo || valor > valorMaximo) {
                     throw new RuntimeException("Dimensão '" + nomeDimensao + "' fora do range permitido: " +
@@ -630,27 +839,21 @@ public class LoteService {
         }
     }
 
-    private CotaMetadata mapToCotaMetadata(Map<String, Object> cotaMap) {
-        return new CotaMetadata(
-                (String) cotaMap.get("nome"),
-                (String) cotaMap.get("label"),
-                (String) cotaMap.get("tipo"),
-                (String) cotaMap.get("unidade"),
-                cotaMap.get("tolerancia") != null ? ((Number) cotaMap.get("tolerancia")).doubleValue() : null,
-                cotaMap.get("valorPadrao") != null ? ((Number) cotaMap.get("valorPadrao")).doubleValue() : null
-        );
-    }
-
-    private String toJson(List<Map<String, Object>> medicoes) {
-        try {
-            return objectMapper.writeValueAsString(medicoes);
-        } catch (Exception e) {
-            return "[]";
+    // NaN e Infinity chegam pelo Jackson ("NaN" como string) e não são medições: quebrariam as somas do SPC
+    static void validarValoresFinitos(Map<String, Double> dimensoes) {
+        if (dimensoes == null) {
+            return;
+        }
+        for (Map.Entry<String, Double> dimensao : dimensoes.entrySet()) {
+            Double valor = dimensao.getValue();
+            if (valor != null && !Double.isFinite(valor)) {
+                throw new RuntimeException("Dimensão '" + dimensao.getKey() + "' com valor inválido: " + valor);
+            }
         }
     }
 
-    public List<Object[]> getEstatisticasPorPeriodo(String dataInicio, String dataFim) {
-        // Implementar consulta por período
-        return List.of();
+    public List<EstatisticaPeriodoResponse> getEstatisticasPorPeriodo(String dataInicio, String dataFim,
+                                                                      String granularidade) {
+        return estatisticaPeriodoService.listar(dataInicio, dataFim, granularidade);
     }
 }
\ No newline at end of file
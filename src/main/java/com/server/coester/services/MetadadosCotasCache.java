@@ -0,0 +1,87 @@
+package com.server.coester.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.coester.dtos.CotaMetadata;
+import com.server.coester.entities.TipoPeca;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Único ponto que converte TipoPeca.metadadosCotas ({"dimensoes": [...]}) em List&lt;CotaMetadata&gt;.
+ * Cada TipoPeca é parseado uma vez por versão; a lista devolvida é imutável e compartilhada.
+ * Como no AvaliadorToleranciaCache, a entrada só é reaproveitada se veio do mesmo JSON da entidade carregada.
+ */
+@Slf4j
+@Component
+public class MetadadosCotasCache {
+
+    private record Entrada(String origem, List<CotaMetadata> cotas) {}
+
+    private final ConcurrentHashMap<Long, Entrada> entradas = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public List<CotaMetadata> obter(TipoPeca tipoPeca) {
+        String metadadosCotas = tipoPeca.getMetadadosCotas();
+
+        Entrada entrada = entradas.get(tipoPeca.getId());
+        if (entrada != null && Objects.equals(entrada.origem(), metadadosCotas)) {
+            return entrada.cotas();
+        }
+
+        List<CotaMetadata> cotas = parseMetadadosCotas(metadadosCotas);
+        if (tipoPeca.getId() != null) {
+            entradas.put(tipoPeca.getId(), new Entrada(metadadosCotas, cotas));
+        }
+        return cotas;
+    }
+
+    public void invalidar(Long tipoPecaId) {
+        entradas.remove(tipoPecaId);
+    }
+
+    private List<CotaMetadata> parseMetadadosCotas(String metadadosJson) {
+        if (metadadosJson == null || metadadosJson.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        try {
+            Map<String, Object> metadadosMap = objectMapper.readValue(metadadosJson, Map.class);
+            List<Map<String, Object>> dimensoesMap = (List<Map<String, Object>>) metadadosMap.get("dimensoes");
+
+            if (dimensoesMap == null) {
+                return Collections.emptyList();
+            }
+
+            return dimensoesMap.stream()
+                    .map(this::mapToCotaMetadata)
+                    .filter(Objects::nonNull)
+                    .toList();
+
+        } catch (Exception e) {
+            log.warn("Erro ao parsear metadados: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private CotaMetadata mapToCotaMetadata(Map<String, Object> cotaMap) {
+        try {
+            return new CotaMetadata(
+                    (String) cotaMap.get("nome"),
+                    (String) cotaMap.get("label"),
+                    (String) cotaMap.get("tipo"),
+                    (String) cotaMap.get("unidade"),
+                    cotaMap.get("tolerancia") != null ? ((Number) cotaMap.get("tolerancia")).doubleValue() : null,
+                    cotaMap.get("valorPadrao") != null ? ((Number) cotaMap.get("valorPadrao")).doubleValue() : null
+            );
+        } catch (Exception e) {
+            log.warn("Erro ao mapear cota: {}", e.getMessage());
+            return null;
+        }
+    }
+}
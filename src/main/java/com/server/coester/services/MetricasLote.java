@@ -0,0 +1,100 @@
+package com.server.coester.services;
+
+import com.server.coester.entities.Lote;
+import com.server.coester.entities.TipoPeca;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métricas dos caminhos de escrita de medições (expostas em /actuator/prometheus).
+ * Cada etapa é uma Observation "coester.lote.etapa" com a tag "etapa": vira Timer com histograma
+ * e, se houver um bridge do micrometer-tracing no classpath, também um span filho da requisição.
+ * Etapas: carregar_lote, avaliacao, estatisticas, gravacao, resposta. A gravacao faz flush, então inclui
+ * os INSERTs/UPDATE no banco; o commit em si fica fora das etapas.
+ * O parse da importação usa um Timer simples: uma amostra por linha, curta demais para uma Observation.
+ */
+@Component
+public class MetricasLote {
+
+    static final String ETAPA = "coester.lote.etapa";
+
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary tamanhoLote;
+    private final Timer parseImportacao;
+
+    public MetricasLote(ObservationRegistry observationRegistry, MeterRegistry meterRegistry, JdbcTemplate jdbcTemplate) {
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+        this.tamanhoLote = DistributionSummary.builder("coester.lote.medicoes")
+                .description("Quantidade de medições do lote após cada escrita")
+                .baseUnit("medicoes")
+                .register(meterRegistry);
+        this.parseImportacao = Timer.builder("coester.importacao.parse")
+                .description("Parse e validação de uma linha do arquivo de importação")
+                .register(meterRegistry);
+
+        // Lido a cada scrape (uma consulta barata ao catálogo); NaN se o banco não responder.
+        // É a tabela inteira (todos os lotes), não o custo de armazenamento de um lote
+        Gauge.builder("coester.banco.tabela.medicoes.tamanho", jdbcTemplate, jdbc -> {
+                    try {
+                        Long bytes = jdbc.queryForObject("SELECT pg_total_relation_size('medicoes')", Long.class);
+                        return bytes != null ? bytes : Double.NaN;
+                    } catch (RuntimeException e) {
+                        return Double.NaN;
+                    }
+                })
+                .description("Tamanho total da tabela medicoes (todos os lotes) com índices e TOAST")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    <T> T medir(String etapa, Supplier<T> acao) {
+        return Observation.createNotStarted(ETAPA, observationRegistry)
+                .lowCardinalityKeyValue("etapa", etapa)
+                .observe(acao);
+    }
+
+    void executar(String etapa, Runnable acao) {
+        Observation.createNotStarted(ETAPA, observationRegistry)
+                .lowCardinalityKeyValue("etapa", etapa)
+                .observe(acao);
+    }
+
+    // Uma chamada por escrita: contadores APROVADO/REPROVADO por tipo de peça e tamanho do lote
+    void registrarMedicoes(Lote lote, TipoPeca tipoPeca, long aprovadas, long reprovadas) {
+        String tipoPecaId = tipoPeca != null && tipoPeca.getId() != null ? tipoPeca.getId().toString() : "nenhum";
+        if (aprovadas > 0) {
+            contador("APROVADO", tipoPecaId).increment(aprovadas);
+        }
+        if (reprovadas > 0) {
+            contador("REPROVADO", tipoPecaId).increment(reprovadas);
+        }
+        if (lote.getQuantidadeAmostras() != null) {
+            tamanhoLote.record(lote.getQuantidadeAmostras());
+        }
+    }
+
+    void registrarParse(long nanos) {
+        parseImportacao.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // O registry devolve o mesmo Counter para o mesmo nome+tags
+    private Counter contador(String status, String tipoPecaId) {
+        return Counter.builder("coester.medicoes")
+                .description("Medições gravadas por status e tipo de peça")
+                .tag("status", status)
+                .tag("tipo_peca", tipoPecaId)
+                .register(meterRegistry);
+    }
+}
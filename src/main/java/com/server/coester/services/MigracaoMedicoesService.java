@@ -0,0 +1,118 @@
+package com.server.coester.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.coester.entities.Lote;
+import com.server.coester.entities.Medicao;
+import com.server.coester.repositories.LoteRepository;
+import com.server.coester.repositories.MedicaoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Move as medições guardadas no campo legado {@code lotes.medicoes_json} para a tabela {@code medicoes}.
+ * Roda na subida da aplicação, antes do servidor web aceitar requisições (DadosIniciaisInitializer):
+ * uma medição nova num lote ainda não migrado tomaria um pecaNumero das medições legadas.
+ * Um lote por transação, idempotente: depois de migrado o lote fica com {@code medicoes_json = NULL}
+ * e não é mais selecionado.
+ */
+@Slf4j
+@Service
+public class MigracaoMedicoesService {
+
+    @Autowired
+    private LoteRepository loteRepository;
+
+    @Autowired
+    private MedicaoRepository medicaoRepository;
+
+    @Autowired
+    private LoteService loteService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public void migrarMedicoesLegadas() {
+        List<Long> loteIds = loteRepository.findIdsComMedicoesJsonLegado();
+        if (loteIds.isEmpty()) {
+            return;
+        }
+
+        log.info("Migrando medições legadas de {} lote(s)", loteIds.size());
+        for (Long loteId : loteIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> migrarLote(loteId));
+            } catch (Exception e) {
+                log.error("Erro ao migrar medições do lote {}", loteId, e);
+            }
+        }
+    }
+
+    private void migrarLote(Long loteId) {
+        // Outros nós do cluster já podem estar atendendo: bloqueia o lote como as demais escritas do LoteService
+        Lote lote = loteRepository.findByIdParaAtualizacao(loteId)
+                .orElseThrow(() -> new RuntimeException("Lote não encontrado"));
+
+        List<Map<String, Object>> medicoesJson = parseMedicoesJson(lote.getMedicoesJson());
+
+        // Lotes antigos podem ter entradas sem pecaNumero: continuam a numeração a partir do maior existente
+        int proximoPecaNumero = medicoesJson.stream()
+                .filter(med -> med.get("pecaNumero") instanceof Number)
+                .mapToInt(med -> ((Number) med.get("pecaNumero")).intValue())
+                .max()
+                .orElse(0) + 1;
+
+        List<Medicao> medicoes = new ArrayList<>();
+        for (Map<String, Object> medicaoMap : medicoesJson) {
+            Medicao medicao = new Medicao();
+            medicao.setLote(lote);
+            if (medicaoMap.get("pecaNumero") instanceof Number numero) {
+                medicao.setPecaNumero(numero.intValue());
+            } else {
+                medicao.setPecaNumero(proximoPecaNumero++);
+            }
+            if (medicaoMap.get("data") != null) {
+                medicao.setData(LocalDateTime.parse(medicaoMap.get("data").toString()));
+            }
+            medicao.setDimensoes(toDimensoes(medicaoMap.get("dimensoes")));
+            medicao.setStatus(medicaoMap.get("status") != null ? medicaoMap.get("status").toString() : "REPROVADO");
+            medicao.setObservacoes((String) medicaoMap.get("observacoes"));
+            medicoes.add(medicao);
+        }
+
+        medicaoRepository.saveAll(medicoes);
+
+        lote.setMedicoesJson(null);
+        loteService.recalcularEstatisticas(lote);
+        lote.setUltimoPecaNumero(medicaoRepository.findMaxPecaNumeroByLoteId(lote.getId()));
+        loteRepository.save(lote);
+    }
+
+    private List<Map<String, Object>> parseMedicoesJson(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<List<Map<String, Object>>>() {});
+        } catch (Exception e) {
+            throw new RuntimeException("JSON de medições inválido", e);
+        }
+    }
+
+    private Map<String, Double> toDimensoes(Object dimensoesObj) {
+        Map<String, Double> dimensoes = new HashMap<>();
+        if (dimensoesObj instanceof Map<?, ?> dimensoesMap) {
+            dimensoesMap.forEach((nome, valor) -> {
+                if (valor instanceof Number numero) {
+                    dimensoes.put(nome.toString(), numero.doubleValue());
+                }
+            });
+        }
+        return dimensoes;
+    }
+}
@@ -0,0 +1,160 @@
+package com.server.coester.services;
+
+import com.server.coester.entities.Lote;
+import com.server.coester.entities.ResumoDashboardUsuario;
+import com.server.coester.repositories.ResumoDashboardUsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Mantém o ResumoDashboardUsuario de cada usuário.
+ * O LoteService chama os métodos registrar* nos caminhos de criar, medir, concluir, reabrir, recomeçar e excluir.
+ * Se o usuário ainda não tem resumo, os deltas são ignorados: o resumo é montado do histórico
+ * completo no primeiro acesso ao dashboard, que já inclui essas alterações.
+ * Um advisory lock por usuário (exclusivo na montagem, compartilhado no delta sem linha) garante que
+ * toda alteração ou entra na montagem ou é aplicada sobre ela, nunca as duas nem nenhuma.
+ */
+@Service
+@Transactional
+public class ResumoDashboardService {
+
+    public static final int QUANTIDADE_LOTES_RECENTES = 5;
+
+    private static final String TRAVA = "SELECT pg_advisory_xact_lock(hashtext('resumo_dashboard_usuario'), "
+            + "CAST(? % 2147483647 AS integer))";
+    private static final String TRAVA_COMPARTILHADA = "SELECT pg_advisory_xact_lock_shared("
+            + "hashtext('resumo_dashboard_usuario'), CAST(? % 2147483647 AS integer))";
+
+    @Autowired
+    private ResumoDashboardUsuarioRepository resumoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public ResumoDashboardUsuario obterResumo(Long usuarioId) {
+        return resumoRepository.findById(usuarioId).orElseGet(() -> {
+            // Espera as transações que aplicaram delta sem encontrar a linha: o INSERT ... SELECT
+            // começa depois do commit delas e já conta os lotes que gravaram
+            jdbcTemplate.queryForList(TRAVA, usuarioId);
+            resumoRepository.criarAPartirDoHistorico(usuarioId, QUANTIDADE_LOTES_RECENTES);
+            return resumoRepository.findById(usuarioId)
+                    .orElseThrow(() -> new RuntimeException("Resumo do dashboard não encontrado"));
+        });
+    }
+
+    public void registrarLoteCriado(Lote lote) {
+        Long usuarioId = usuarioIdDe(lote);
+        if (usuarioId == null) {
+            return;
+        }
+
+        Delta delta = new Delta();
+        delta.total = 1;
+        delta.contar(lote.getStatus(), lote.getTaxaAprovacao(), 1);
+        aplicar(usuarioId, delta);
+        resumoRepository.adicionarLoteRecente(usuarioId, lote.getId(), QUANTIDADE_LOTES_RECENTES);
+    }
+
+    // Lotes criados juntos (mesmo usuário): um único delta e só os últimos N entram na lista de recentes
+    public void registrarLotesCriados(List<Lote> lotes) {
+        if (lotes.isEmpty()) {
+            return;
+        }
+        Long usuarioId = usuarioIdDe(lotes.get(0));
+        if (usuarioId == null) {
+            return;
+        }
+
+        Delta delta = new Delta();
+        delta.total = lotes.size();
+        for (Lote lote : lotes) {
+            delta.contar(lote.getStatus(), lote.getTaxaAprovacao(), 1);
+        }
+        aplicar(usuarioId, delta);
+        for (Lote lote : lotes.subList(Math.max(0, lotes.size() - QUANTIDADE_LOTES_RECENTES), lotes.size())) {
+            resumoRepository.adicionarLoteRecente(usuarioId, lote.getId(), QUANTIDADE_LOTES_RECENTES);
+        }
+    }
+
+    // Chamado depois de qualquer alteração de status/estatísticas do lote
+    public void registrarAlteracao(Lote lote, String statusAnterior, Double taxaAnterior) {
+        Long usuarioId = usuarioIdDe(lote);
+        if (usuarioId == null) {
+            return;
+        }
+
+        Delta delta = new Delta();
+        delta.contar(statusAnterior, taxaAnterior, -1);
+        delta.contar(lote.getStatus(), lote.getTaxaAprovacao(), 1);
+        if (!delta.vazio()) {
+            aplicar(usuarioId, delta);
+        }
+    }
+
+    public void registrarLoteExcluido(Lote lote) {
+        Long usuarioId = usuarioIdDe(lote);
+        if (usuarioId == null) {
+            return;
+        }
+
+        Delta delta = new Delta();
+        delta.total = -1;
+        delta.contar(lote.getStatus(), lote.getTaxaAprovacao(), -1);
+        aplicar(usuarioId, delta);
+        resumoRepository.recalcularLotesRecentes(usuarioId, lote.getId(), QUANTIDADE_LOTES_RECENTES);
+    }
+
+    private void aplicar(Long usuarioId, Delta delta) {
+        if (aplicarDelta(usuarioId, delta) > 0) {
+            return;
+        }
+        // Sem resumo: a trava (até o commit) faz uma montagem futura esperar e incluir este lote.
+        // Se uma montagem terminou entre o UPDATE e a trava, ela não viu este lote: aplica de novo
+        jdbcTemplate.queryForList(TRAVA_COMPARTILHADA, usuarioId);
+        aplicarDelta(usuarioId, delta);
+    }
+
+    private int aplicarDelta(Long usuarioId, Delta delta) {
+        return resumoRepository.aplicarDelta(usuarioId, delta.total, delta.emAndamento, delta.prontos,
+                delta.aprovados, delta.reprovados, delta.somaTaxa);
+    }
+
+    private Long usuarioIdDe(Lote lote) {
+        // getId() do proxy LAZY não dispara consulta
+        return lote.getUsuario() != null ? lote.getUsuario().getId() : null;
+    }
+
+    private static class Delta {
+        private long total;
+        private long emAndamento;
+        private long prontos;
+        private long aprovados;
+        private long reprovados;
+        private double somaTaxa;
+
+        private void contar(String status, Double taxaAprovacao, int sinal) {
+            if (status == null) {
+                return;
+            }
+            switch (status) {
+                case "EM_ANDAMENTO" -> emAndamento += sinal;
+                case "PRONTO_PARA_CONCLUSAO" -> prontos += sinal;
+                case "APROVADO" -> aprovados += sinal;
+                case "REPROVADO" -> reprovados += sinal;
+                default -> { }
+            }
+            if ("APROVADO".equals(status) || "REPROVADO".equals(status)) {
+                somaTaxa += sinal * (taxaAprovacao != null ? taxaAprovacao : 0.0);
+            }
+        }
+
+        private boolean vazio() {
+            return total == 0 && emAndamento == 0 && prontos == 0 && aprovados == 0 && reprovados == 0
+                    && somaTaxa == 0.0;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.server.coester.services;
+
+import com.server.coester.dtos.CotaMetadata;
+import com.server.coester.dtos.EstatisticaCotaResponse;
+import com.server.coester.dtos.EstatisticasSpcResponse;
+import com.server.coester.entities.EstatisticaCota;
+import com.server.coester.entities.Lote;
+import com.server.coester.entities.Medicao;
+import com.server.coester.repositories.EstatisticaCotaRepository;
+import com.server.coester.repositories.LoteRepository;
+import com.server.coester.repositories.MedicaoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Controle estatístico de processo por lote e por cota.
+ * Cada medição atualiza as estatísticas suficientes da cota (Welford + subgrupo em formação),
+ * então a leitura de Cp/Cpk, Pp/Ppk e dos limites X-barra/R é O(cotas), sem reler as medições.
+ * Cp/Cpk usam o desvio dentro dos subgrupos (R-barra / d2); Pp/Ppk, o desvio padrão de todas as amostras.
+ * Remover medições desfaz a ordem dos subgrupos: nesse caso as estatísticas do lote são refeitas.
+ */
+@Service
+@Transactional
+public class SpcService {
+
+    // Subgrupos de 5 peças consecutivas (pecaNumero) e as constantes de Shewhart para n = 5
+    public static final int TAMANHO_SUBGRUPO = 5;
+    private static final double D2 = 2.326;
+    private static final double A2 = 0.577;
+    private static final double D3 = 0.0;
+    private static final double D4 = 2.114;
+
+    @Autowired
+    private EstatisticaCotaRepository estatisticaCotaRepository;
+
+    @Autowired
+    private MedicaoRepository medicaoRepository;
+
+    @Autowired
+    private LoteRepository loteRepository;
+
+    @Autowired
+    private AvaliadorToleranciaCache avaliadorToleranciaCache;
+
+    @Autowired
+    private MetadadosCotasCache metadadosCotasCache;
+
+    public EstatisticasSpcResponse obterSpc(Long loteId) {
+        Lote lote = loteRepository.findById(loteId)
+                .orElseThrow(() -> new RuntimeException("Lote não encontrado"));
+
+        List<EstatisticaCota> estatisticas = estatisticaCotaRepository.findByLoteId(loteId);
+        // Lotes medidos antes do SPC: monta as estatísticas uma única vez a partir das medições.
+        // A reconstrução grava, então bloqueia o lote como as escritas de medição e confere de novo
+        if (estatisticas.isEmpty() && medicaoRepository.existsByLoteId(loteId)) {
+            lote = loteRepository.findByIdParaAtualizacao(loteId)
+                    .orElseThrow(() -> new RuntimeException("Lote não encontrado"));
+            if (!estatisticaCotaRepository.existsByLoteId(loteId)) {
+                recalcular(lote);
+            }
+            estatisticas = estatisticaCotaRepository.findByLoteId(loteId);
+        }
+
+        Map<String, EstatisticaCota> porCota = estatisticas.stream()
+                .collect(Collectors.toMap(EstatisticaCota::getCota, Function.identity()));
+
+        List<EstatisticaCotaResponse> cotas = metadadosCotasCache.obter(lote.getTipoPeca()).stream()
+                .map(cota -> toResponse(cota, porCota.get(cota.nome())))
+                .toList();
+
+        return new EstatisticasSpcResponse(loteId, TAMANHO_SUBGRUPO, cotas);
+    }
+
+    // Chamado depois de gravar as medições, na ordem de pecaNumero, com o lote bloqueado
+    public void registrarMedicoes(Lote lote, List<Map<String, Double>> dimensoesMedidas) {
+        AvaliadorTolerancia avaliador = avaliadorToleranciaCache.obter(lote.getTipoPeca());
+        if (avaliador.quantidadeCotas() == 0) {
+            return;
+        }
+
+        Map<String, EstatisticaCota> porCota = estatisticaCotaRepository.findByLoteId(lote.getId()).stream()
+                .collect(Collectors.toMap(EstatisticaCota::getCota, Function.identity()));
+
+        // Sem estatísticas mas com medições anteriores (lote medido antes do SPC): acumular só as novas
+        // deixaria a cota incompleta para sempre, então refaz tudo a partir das medições gravadas
+        if (porCota.isEmpty() && medicaoRepository.countByLoteId(lote.getId()) > dimensoesMedidas.size()) {
+            recalcular(lote);
+            return;
+        }
+
+        for (Map<String, Double> dimensoes : dimensoesMedidas) {
+            acumular(lote, avaliador, dimensoes, porCota);
+        }
+
+        estatisticaCotaRepository.saveAll(porCota.values());
+    }
+
+    // Refaz as estatísticas do lote a partir das medições gravadas (remoção de medição, reparo, migração)
+    public void recalcular(Lote lote) {
+        estatisticaCotaRepository.deleteByLoteId(lote.getId());
+
+        AvaliadorTolerancia avaliador = avaliadorToleranciaCache.obter(lote.getTipoPeca());
+        if (avaliador.quantidadeCotas() == 0) {
+            return;
+        }
+
+        Map<String, EstatisticaCota> porCota = new HashMap<>();
+        for (Medicao medicao : medicaoRepository.findByLoteIdOrderByPecaNumeroAsc(lote.getId())) {
+            acumular(lote, avaliador, medicao.getDimensoes(), porCota);
+        }
+
+        estatisticaCotaRepository.saveAll(porCota.values());
+    }
+
+    public void limpar(Long loteId) {
+        estatisticaCotaRepository.deleteByLoteId(loteId);
+    }
+
+    // package-private: usado também pelos benchmarks (src/jmh)
+    void acumular(Lote lote, AvaliadorTolerancia avaliador, Map<String, Double> dimensoes,
+                          Map<String, EstatisticaCota> porCota) {
+        if (dimensoes == null) {
+            return;
+        }
+
+        for (int i = 0; i < avaliador.quantidadeCotas(); i++) {
+            Double valor = dimensoes.get(avaliador.nome(i));
+            if (valor == null || valor.isNaN() || valor.isInfinite()) {
+                continue;
+            }
+
+            String nomeCota = avaliador.nome(i);
+            EstatisticaCota estatistica = porCota.computeIfAbsent(nomeCota, nome -> novaEstatistica(lote, nome));
+            adicionarValor(estatistica, valor);
+        }
+    }
+
+    private EstatisticaCota novaEstatistica(Lote lote, String cota) {
+        EstatisticaCota estatistica = new EstatisticaCota();
+        estatistica.setLote(lote);
+        estatistica.setCota(cota);
+        return estatistica;
+    }
+
+    private void adicionarValor(EstatisticaCota estatistica, double valor) {
+        // Welford: estável mesmo com valores grandes e variância pequena
+        long amostras = estatistica.getAmostras() + 1;
+        double delta = valor - estatistica.getMedia();
+        double media = estatistica.getMedia() + delta / amostras;
+        estatistica.setM2(estatistica.getM2() + delta * (valor - media));
+        estatistica.setMedia(media);
+        estatistica.setAmostras(amostras);
+
+        estatistica.setMinimo(estatistica.getMinimo() == null ? valor : Math.min(estatistica.getMinimo(), valor));
+        estatistica.setMaximo(estatistica.getMaximo() == null ? valor : Math.max(estatistica.getMaximo(), valor));
+
+        // Subgrupo em formação
+        int tamanho = estatistica.getSubgrupoAtualTamanho() + 1;
+        double soma = estatistica.getSubgrupoAtualSoma() + valor;
+        double minimo = tamanho == 1 ? valor : Math.min(estatistica.getSubgrupoAtualMinimo(), valor);
+        double maximo = tamanho == 1 ? valor : Math.max(estatistica.getSubgrupoAtualMaximo(), valor);
+
+        if (tamanho == TAMANHO_SUBGRUPO) {
+            estatistica.setSubgrupos(estatistica.getSubgrupos() + 1);
+            estatistica.setSomaMediasSubgrupos(estatistica.getSomaMediasSubgrupos() + soma / TAMANHO_SUBGRUPO);
+            estatistica.setSomaAmplitudesSubgrupos(estatistica.getSomaAmplitudesSubgrupos() + (maximo - minimo));
+
+            estatistica.setSubgrupoAtualTamanho(0);
+            estatistica.setSubgrupoAtualSoma(0.0);
+            estatistica.setSubgrupoAtualMinimo(null);
+            estatistica.setSubgrupoAtualMaximo(null);
+        } else {
+            estatistica.setSubgrupoAtualTamanho(tamanho);
+            estatistica.setSubgrupoAtualSoma(soma);
+            estatistica.setSubgrupoAtualMinimo(minimo);
+            estatistica.setSubgrupoAtualMaximo(maximo);
+        }
+    }
+
+    // package-private: usado pelos testes
+    EstatisticaCotaResponse toResponse(CotaMetadata cota, EstatisticaCota estatistica) {
+        // Mesmos limites do AvaliadorTolerancia: valorPadrao ± tolerancia
+        boolean temEspecificacao = cota.valorPadrao() != null && cota.tolerancia() != null;
+        Double lie = temEspecificacao ? cota.valorPadrao() - cota.tolerancia() : null;
+        Double lse = temEspecificacao ? cota.valorPadrao() + cota.tolerancia() : null;
+
+        if (estatistica == null || estatistica.getAmostras() == 0) {
+            return new EstatisticaCotaResponse(cota.nome(), cota.label(), cota.unidade(), cota.valorPadrao(),
+                    cota.tolerancia(), lie, lse, 0L, null, null, null, null, null, null, null, null, 0L,
+                    null, null, null, null, null, null, null);
+        }
+
+        long amostras = estatistica.getAmostras();
+        double media = estatistica.getMedia();
+        // Desvio padrão amostral (n - 1)
+        Double desvioPadrao = amostras > 1 ? Math.sqrt(estatistica.getM2() / (amostras - 1)) : null;
+
+        // Desempenho do processo: desvio de todas as amostras (inclui variação entre subgrupos)
+        Double pp = null;
+        Double ppk = null;
+        if (temEspecificacao && desvioPadrao != null && desvioPadrao > 0) {
+            pp = (lse - lie) / (6 * desvioPadrao);
+            ppk = Math.min(lse - media, media - lie) / (3 * desvioPadrao);
+        }
+
+        long subgrupos = estatistica.getSubgrupos();
+        Double mediaGeral = null;
+        Double amplitudeMedia = null;
+        Double desvioDentro = null;
+        Double lscMedia = null;
+        Double licMedia = null;
+        Double lscAmplitude = null;
+        Double licAmplitude = null;
+        if (subgrupos > 0) {
+            mediaGeral = estatistica.getSomaMediasSubgrupos() / subgrupos;
+            amplitudeMedia = estatistica.getSomaAmplitudesSubgrupos() / subgrupos;
+            desvioDentro = amplitudeMedia / D2;
+            lscMedia = mediaGeral + A2 * amplitudeMedia;
+            licMedia = mediaGeral - A2 * amplitudeMedia;
+            lscAmplitude = D4 * amplitudeMedia;
+            licAmplitude = D3 * amplitudeMedia;
+        }
+
+        // Capacidade do processo: só a variação de curto prazo, dentro dos subgrupos
+        Double cp = null;
+        Double cpk = null;
+        if (temEspecificacao && desvioDentro != null && desvioDentro > 0) {
+            cp = (lse - lie) / (6 * desvioDentro);
+            cpk = Math.min(lse - media, media - lie) / (3 * desvioDentro);
+        }
+
+        return new EstatisticaCotaResponse(
+                cota.nome(),
+                cota.label(),
+                cota.unidade(),
+                cota.valorPadrao(),
+                cota.tolerancia(),
+                lie,
+                lse,
+                amostras,
+                media,
+                desvioPadrao,
+                estatistica.getMinimo(),
+                estatistica.getMaximo(),
+                cp,
+                cpk,
+                pp,
+                ppk,
+                subgrupos,
+                mediaGeral,
+                amplitudeMedia,
+                desvioDentro,
+                lscMedia,
+                licMedia,
+                lscAmplitude,
+                licAmplitude
+        );
+    }
+}
@@ -22,11 +22,16 @@ public class TipoPecaService {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private AvaliadorToleranciaCache avaliadorToleranciaCache;
+
+    @Autowired
+    private MetadadosCotasCache metadadosCotasCache;
+
     public TipoPecaResponse criarTipoPeca(CriarTipoPecaRequest request) {
         TipoPeca tipoPeca = new TipoPeca();
         tipoPeca.setNome(request.nome());
         tipoPeca.setDescricao(request.descricao());
-        System.out.println("peça tal"+request.dimensoes());
         tipoPeca.setMetadadosCotas(convertDimensoesToJson(request.dimensoes()));
 
         TipoPeca saved = tipoPecaRepository.save(tipoPeca);
@@ -55,7 +60,31 @@ public class TipoPecaService {
     }
 
     public List<TipoPecaResponse> buscarPorNome(String nome) {
-        return tipoPecaRepository.findByNomeContainingIgnoreCase(nome).stream()
+        return buscarPorNome(nome, null);
+    }
+
+    // Prefixo, depois trecho (LIKE '%termo%') e por fim similaridade (pg_trgm); todas usam índice e LIMIT.
+    // Termos curtos demais para trigramas só buscam por prefixo
+    public List<TipoPecaResponse> buscarPorNome(String nome, Integer limite) {
+        String termo = BuscaTexto.normalizar(nome);
+        if (termo.isEmpty()) {
+            return List.of();
+        }
+        int limiteBusca = BuscaTexto.limite(limite);
+        String prefixo = BuscaTexto.prefixoLike(termo);
+
+        List<TipoPeca> porPrefixo = tipoPecaRepository.buscarPorPrefixoNome(prefixo, limiteBusca);
+        boolean trigramas = BuscaTexto.usaTrigramas(termo);
+        List<TipoPeca> porTrecho = trigramas && porPrefixo.size() < limiteBusca
+                ? tipoPecaRepository.buscarPorTrechoNome(termo, BuscaTexto.contemLike(termo), prefixo,
+                        limiteBusca - porPrefixo.size())
+                : List.of();
+        List<TipoPeca> porSimilaridade = trigramas && porPrefixo.size() + porTrecho.size() < limiteBusca
+                ? tipoPecaRepository.buscarPorSimilaridadeNome(termo, limiteBusca)
+                : List.of();
+
+        return BuscaTexto.combinar(List.of(porPrefixo, porTrecho, porSimilaridade), TipoPeca::getId, limiteBusca)
+                .stream()
                 .map(this::toTipoPecaResponse)
                 .toList();
     }
@@ -84,6 +113,7 @@ public class TipoPecaService {
 
         // 3. Salva a entidade atualizada. O JPA executa um UPDATE.
         TipoPeca updated = tipoPecaRepository.save(tipoPeca);
+        invalidarCaches(id);
 
         // 4. Retorna a resposta convertida.
         return toTipoPecaResponse(updated);
@@ -104,6 +134,7 @@ public class TipoPecaService {
         tipoPeca.setMetadadosCotas(tipoPecaAtualizado.getMetadadosCotas());
 
         TipoPeca updated = tipoPecaRepository.save(tipoPeca);
+        invalidarCaches(id);
         return toTipoPecaResponse(updated);
     }
 
@@ -116,6 +147,13 @@ public class TipoPecaService {
         }
 
         tipoPecaRepository.delete(tipoPeca);
+        invalidarCaches(id);
+    }
+
+    // Descarta as cotas parseadas e o avaliador compilado deste tipo de peça
+    private void invalidarCaches(Long tipoPecaId) {
+        metadadosCotasCache.invalidar(tipoPecaId);
+        avaliadorToleranciaCache.invalidar(tipoPecaId);
     }
 
     public List<Object[]> obterEstatisticasUso() {
@@ -124,54 +162,7 @@ public class TipoPecaService {
 
     // MÉTODO DE CONVERSÃO CORRIGIDO
     private TipoPecaResponse toTipoPecaResponse(TipoPeca tipoPeca) {
-        return new TipoPecaResponse(
-                tipoPeca.getId(),
-                tipoPeca.getNome(),
-                tipoPeca.getDescricao(),
-                parseMetadadosCotas(tipoPeca.getMetadadosCotas())
-        );
-    }
-
-    // IMPLEMENTAÇÃO COMPLETA DO PARSE
-    private List<CotaMetadata> parseMetadadosCotas(String metadadosJson) {
-        if (metadadosJson == null || metadadosJson.trim().isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        try {
-            // Tentar parse direto do JSON
-            Map<String, Object> metadadosMap = objectMapper.readValue(metadadosJson, Map.class);
-            List<Map<String, Object>> dimensoesMap = (List<Map<String, Object>>) metadadosMap.get("dimensoes");
-
-            if (dimensoesMap == null) {
-                return Collections.emptyList();
-            }
-
-            return dimensoesMap.stream()
-                    .map(this::mapToCotaMetadata)
-                    .filter(Objects::nonNull)
-                    .toList();
-
-        } catch (Exception e) {
-            System.err.println("Erro ao parsear metadados: " + e.getMessage());
-            return Collections.emptyList();
-        }
-    }
-
-    private CotaMetadata mapToCotaMetadata(Map<String, Object> cotaMap) {
-        try {
-            return new CotaMetadata(
-                    (String) cotaMap.get("nome"),
-                    (String) cotaMap.get("label"),
-                    (String) cotaMap.get("tipo"),
-                    (String) cotaMap.get("unidade"),
-                    cotaMap.get("tolerancia") != null ? ((Number) cotaMap.get("tolerancia")).doubleValue() : null,
-                    cotaMap.get("valorPadrao") != null ? ((Number) cotaMap.get("valorPadrao")).doubleValue() : null
-            );
-        } catch (Exception e) {
-            System.err.println("Erro ao mapear cota: " + e.getMessage());
-            return null;
-        }
+        return new TipoPecaResponse(tipoPeca, metadadosCotasCache.obter(tipoPeca));
     }
 
     // REMOVA estes métodos duplicados e incorretos:
@@ -187,6 +178,16 @@ public class TipoPecaService {
     //     // Conflito de assinatura - use o método atualizarTipoPecaEntity
     // }
 
+    // ETags fortes a partir das versões (@Version), sem carregar nem serializar os tipos de peça
+    public String etagTiposPeca() {
+        return "\"tipos-peca-" + tipoPecaRepository.findVersaoCatalogo() + "\"";
+    }
+
+    public Optional<String> etagTemplateMedicao(Long tipoPecaId) {
+        return tipoPecaRepository.findVersaoById(tipoPecaId)
+                .map(versao -> "\"template-" + tipoPecaId + "-" + versao + "\"");
+    }
+
     public List<TipoPecaResponse> listarTodosOrdenados() {
         return tipoPecaRepository.findAllOrderByNome().stream()
                 .map(this::toTipoPecaResponse)
@@ -198,7 +199,7 @@ public class TipoPecaService {
         TipoPeca tipoPeca = tipoPecaRepository.findById(tipoPecaId)
                 .orElseThrow(() -> new RuntimeException("Tipo de peça não encontrado"));
 
-        List<CotaMetadata> cotas = parseMetadadosCotas(tipoPeca.getMetadadosCotas());
+        List<CotaMetadata> cotas = metadadosCotasCache.obter(tipoPeca);
 
         Map<String, Object> template = new HashMap<>();
         template.put("tipoPecaId", tipoPeca.getId());
@@ -0,0 +1,124 @@
+package com.server.coester.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.coester.entities.Usuario;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Emite e valida os tokens de sessão devolvidos pelo login.
+ * Formato: base64url(payload JSON) + "." + base64url(HMAC-SHA256(payload)).
+ * A validação é só o HMAC e a data de expiração: sem consulta ao banco e sem BCrypt por requisição.
+ */
+@Slf4j
+@Service
+public class TokenService {
+
+    private static final String ALGORITMO = "HmacSHA256";
+    // HMAC-SHA256: chave com pelo menos o tamanho da saída do hash
+    static final int TAMANHO_MINIMO_SEGREDO = 32;
+    // Perfil de desenvolvimento (o mesmo do logback-spring.xml): único em que o segredo pode faltar
+    private static final String PERFIL_DESENVOLVIMENTO = "local";
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getUrlDecoder();
+
+    // Dados carregados no token
+    public record Sessao(Long id, String email, String nome, List<String> roles, long exp) {}
+
+    private final SecretKeySpec chave;
+    private final long validadeSegundos;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public TokenService(@Value("${coester.auth.token.segredo:}") String segredo,
+                        @Value("${coester.auth.token.validade-minutos:480}") long validadeMinutos,
+                        Environment environment) {
+        byte[] bytesChave = segredo == null ? new byte[0] : segredo.getBytes(StandardCharsets.UTF_8);
+        if (bytesChave.length < TAMANHO_MINIMO_SEGREDO) {
+            // Fora do perfil local a aplicação não sobe: com chave aleatória os tokens não valeriam entre
+            // nós nem depois de um reinício, e um segredo curto pode ser descoberto por força bruta
+            if (!environment.acceptsProfiles(Profiles.of(PERFIL_DESENVOLVIMENTO))) {
+                throw new IllegalArgumentException("Defina a variável de ambiente COESTER_TOKEN_SEGREDO "
+                        + "(coester.auth.token.segredo) com pelo menos " + TAMANHO_MINIMO_SEGREDO
+                        + " bytes, o mesmo valor em todos os nós (ex.: openssl rand -base64 48); recebido: "
+                        + bytesChave.length + " bytes");
+            }
+            log.warn("coester.auth.token.segredo ausente ou com menos de {} bytes: usando chave aleatória "
+                    + "(aceito só no perfil {})", TAMANHO_MINIMO_SEGREDO, PERFIL_DESENVOLVIMENTO);
+            bytesChave = new byte[TAMANHO_MINIMO_SEGREDO];
+            new SecureRandom().nextBytes(bytesChave);
+        }
+        this.chave = new SecretKeySpec(bytesChave, ALGORITMO);
+        this.validadeSegundos = validadeMinutos * 60;
+    }
+
+    public String gerarToken(Usuario usuario) {
+        Sessao sessao = new Sessao(
+                usuario.getId(),
+                usuario.getEmail(),
+                usuario.getUsername(),
+                List.copyOf(usuario.getArrayRoles()),
+                Instant.now().getEpochSecond() + validadeSegundos
+        );
+
+        try {
+            String payload = BASE64.encodeToString(objectMapper.writeValueAsBytes(sessao));
+            return payload + "." + BASE64.encodeToString(assinar(payload));
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao gerar token de sessão", e);
+        }
+    }
+
+    // Retorna a sessão se a assinatura confere e o token não expirou
+    public Optional<Sessao> validarToken(String token) {
+        int separador = token.indexOf('.');
+        if (separador <= 0 || separador == token.length() - 1) {
+            return Optional.empty();
+        }
+
+        try {
+            String payload = token.substring(0, separador);
+            byte[] assinatura = BASE64_DECODER.decode(token.substring(separador + 1));
+
+            // Comparação em tempo constante
+            if (!MessageDigest.isEqual(assinar(payload), assinatura)) {
+                return Optional.empty();
+            }
+
+            Sessao sessao = objectMapper.readValue(BASE64_DECODER.decode(payload), Sessao.class);
+            if (sessao.exp() < Instant.now().getEpochSecond()) {
+                return Optional.empty();
+            }
+            return Optional.of(sessao);
+
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    public long getValidadeSegundos() {
+        return validadeSegundos;
+    }
+
+    private byte[] assinar(String payload) throws Exception {
+        // Mac não é thread-safe; criar um por chamada custa microssegundos
+        Mac mac = Mac.getInstance(ALGORITMO);
+        mac.init(chave);
+        return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+}
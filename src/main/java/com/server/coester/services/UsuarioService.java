@@ -1,10 +1,12 @@
 package com.server.coester.services;
 
 
+import com.server.coester.dtos.UsuarioAutenticado;
 import com.server.coester.dtos.UsuarioDto;
 import com.server.coester.dtos.UsuarioDtoResume;
 import com.server.coester.entities.Usuario;
 import com.server.coester.repositories.UsuarioRepository;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -37,7 +39,6 @@ public class UsuarioService implements UserDetailsService {
         if (usuarioRepository.findByEmail(usuario.email()).isPresent()) {
             throw new RuntimeException("Email já existe");
         }
-        System.out.println(usuario.role());
         // Criptografa a senha e salva
         Usuario usuarioFinal = new Usuario(usuario.username(), usuario.email(), passwordEncoder.encode(usuario.password()));
         usuarioFinal.setRole(usuario.role());
@@ -79,12 +80,31 @@ public class UsuarioService implements UserDetailsService {
         List<UsuarioDto> usuarios = usuarioRepository.findAllByOrderByUsernameAsc();
         return usuarios;
     }
-    public Usuario getUsuarioAutenticado() {
-        // 1. Obtém o email/username do contexto de segurança
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+    public Optional<Usuario> buscarPorEmail(String email) {
+        return usuarioRepository.findByEmail(email);
+    }
+
+    // Id, email e roles do usuário logado, direto do principal montado pelos filtros (sem consulta)
+    public UsuarioAutenticado getUsuarioAutenticadoPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof UsuarioAutenticado principal) {
+            return principal;
+        }
+
+        // Autenticações que não passaram pelos nossos filtros (ex.: testes com usuário mock)
+        return usuarioRepository.findByEmail(authentication.getName())
+                .map(UsuarioAutenticado::de)
+                .orElseThrow(() -> new RuntimeException("Usuário autenticado não encontrado no DB"));
+    }
 
-        // 2. Busca o objeto Usuario completo no banco de dados
-        return usuarioRepository.findByEmail(email)
+    // Referência (proxy) ao usuário logado, para relacionamentos e filtros por usuário: não consulta o banco
+    public Usuario getReferenciaUsuarioAutenticado() {
+        return usuarioRepository.getReferenceById(getUsuarioAutenticadoPrincipal().id());
+    }
+
+    public Usuario getUsuarioAutenticado() {
+        // Busca por id: dentro da mesma requisição/transação chamadas seguintes vêm do cache do EntityManager
+        return usuarioRepository.findById(getUsuarioAutenticadoPrincipal().id())
                 .orElseThrow(() -> new RuntimeException("Usuário autenticado não encontrado no DB"));
     }
 }
@@ -3,7 +3,7 @@ package com.server.coester;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "coester.auth.token.segredo=segredo-de-teste-com-pelo-menos-32-bytes")
 class CoesterApplicationTests {
 
 	@Test
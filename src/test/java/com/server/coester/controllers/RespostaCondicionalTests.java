@@ -0,0 +1,47 @@
+package com.server.coester.controllers;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Comparação fraca do If-None-Match (RFC 9110) usada nos GETs condicionais
+class RespostaCondicionalTests {
+
+    private static final String ETAG = "\"lote-1-3-2\"";
+
+    @Test
+    void mesmoEtag() {
+        assertTrue(RespostaCondicional.naoModificado("\"lote-1-3-2\"", ETAG));
+    }
+
+    @Test
+    void prefixoFracoDosDoisLados() {
+        assertTrue(RespostaCondicional.naoModificado("W/\"lote-1-3-2\"", ETAG));
+        assertTrue(RespostaCondicional.naoModificado("\"lote-1-3-2\"", "W/" + ETAG));
+    }
+
+    @Test
+    void listaDeEtags() {
+        assertTrue(RespostaCondicional.naoModificado("\"lote-1-2-2\", \"lote-1-3-2\"", ETAG));
+        assertFalse(RespostaCondicional.naoModificado("\"lote-1-2-2\", \"lote-1-1-2\"", ETAG));
+    }
+
+    @Test
+    void asteriscoBateComRecursoExistente() {
+        assertTrue(RespostaCondicional.naoModificado("*", ETAG));
+    }
+
+    @Test
+    void versaoDiferente() {
+        assertFalse(RespostaCondicional.naoModificado("\"lote-1-4-2\"", ETAG));
+        // Com e sem medições têm ETags diferentes
+        assertFalse(RespostaCondicional.naoModificado("\"lote-1-3-2-m\"", ETAG));
+    }
+
+    @Test
+    void semCabecalhoOuSemEtag() {
+        assertFalse(RespostaCondicional.naoModificado(null, ETAG));
+        assertFalse(RespostaCondicional.naoModificado("*", null));
+    }
+}
@@ -0,0 +1,92 @@
+package com.server.coester.services;
+
+import com.server.coester.dtos.CotaMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Mesmas regras do antigo calcularStatusMedicao, sem banco nem Spring
+class AvaliadorToleranciaTests {
+
+    private final AvaliadorTolerancia avaliador = AvaliadorTolerancia.compilar("teste", List.of(
+            new CotaMetadata("comprimento", "Comprimento", "number", "mm", 0.5, 50.0),
+            new CotaMetadata("diametro", "Diâmetro", "number", "mm", 0.05, 10.0),
+            new CotaMetadata("acabamento", "Acabamento", "text", null, null, null)));
+
+    @Test
+    void aprovaDentroDaTolerancia() {
+        assertEquals(AvaliadorTolerancia.APROVADO,
+                avaliador.avaliar(medicao(50.05, 9.96, 1.0)));
+    }
+
+    // Valores exatos em binário: |50.5 - 50.0| == 0.5
+    @Test
+    void aprovaNoLimiteDaTolerancia() {
+        assertEquals(AvaliadorTolerancia.APROVADO,
+                avaliador.avaliar(medicao(50.5, 10.0, 1.0)));
+    }
+
+    @Test
+    void reprovaForaDaTolerancia() {
+        assertEquals(AvaliadorTolerancia.REPROVADO,
+                avaliador.avaliar(medicao(50.6, 10.0, 1.0)));
+        assertEquals(AvaliadorTolerancia.REPROVADO,
+                avaliador.avaliar(medicao(50.0, 9.9, 1.0)));
+    }
+
+    @Test
+    void reprovaSemCotaObrigatoria() {
+        Map<String, Double> dimensoes = medicao(50.0, 10.0, 1.0);
+        dimensoes.remove("acabamento");
+
+        assertEquals(AvaliadorTolerancia.REPROVADO, avaliador.avaliar(dimensoes));
+    }
+
+    @Test
+    void cotaPresenteSemValorNaoReprova() {
+        Map<String, Double> dimensoes = medicao(50.0, 10.0, 1.0);
+        dimensoes.put("acabamento", null);
+
+        assertEquals(AvaliadorTolerancia.APROVADO, avaliador.avaliar(dimensoes));
+    }
+
+    // NaN passa em qualquer comparação; sem a checagem viraria APROVADO
+    @Test
+    void reprovaValoresNaoFinitos() {
+        assertEquals(AvaliadorTolerancia.REPROVADO,
+                avaliador.avaliar(medicao(Double.NaN, 10.0, 1.0)));
+        assertEquals(AvaliadorTolerancia.REPROVADO,
+                avaliador.avaliar(medicao(50.0, Double.POSITIVE_INFINITY, 1.0)));
+        // Também em cota sem tolerância
+        assertEquals(AvaliadorTolerancia.REPROVADO,
+                avaliador.avaliar(medicao(50.0, 10.0, Double.NaN)));
+    }
+
+    @Test
+    void expoeLimitesEIndices() {
+        int indice = avaliador.indiceDe("diametro");
+
+        assertEquals(1, indice);
+        assertEquals(-1, avaliador.indiceDe("inexistente"));
+        assertTrue(avaliador.temTolerancia(indice));
+        assertFalse(avaliador.temTolerancia(avaliador.indiceDe("acabamento")));
+        assertEquals(9.95, avaliador.limiteInferior(indice), 1e-9);
+        assertEquals(10.05, avaliador.limiteSuperior(indice), 1e-9);
+        assertTrue(avaliador.compiladoDe("teste"));
+        assertFalse(avaliador.compiladoDe("outro"));
+    }
+
+    private static Map<String, Double> medicao(Double comprimento, Double diametro, Double acabamento) {
+        Map<String, Double> dimensoes = new HashMap<>();
+        dimensoes.put("comprimento", comprimento);
+        dimensoes.put("diametro", diametro);
+        dimensoes.put("acabamento", acabamento);
+        return dimensoes;
+    }
+}
@@ -0,0 +1,50 @@
+package com.server.coester.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FormatoCodigoLoteTests {
+
+    private static final LocalDate DATA = LocalDate.of(2026, 10, 18);
+
+    @Test
+    void prefixoDataEContador() {
+        FormatoCodigoLote formato = new FormatoCodigoLote("LOTE", "yyyyMMdd", 6);
+
+        assertEquals("LOTE-20261018-000123", formato.formatar(DATA, 123));
+        assertTrue(formato.temData());
+    }
+
+    @Test
+    void contadorMaiorQueOsDigitosNaoETruncado() {
+        assertEquals("LOTE-20261018-1234567", new FormatoCodigoLote("LOTE", "yyyyMMdd", 6).formatar(DATA, 1234567));
+    }
+
+    @Test
+    void semDataESemPrefixo() {
+        FormatoCodigoLote semData = new FormatoCodigoLote("LOTE", " ", 6);
+
+        assertEquals("LOTE-000042", semData.formatar(DATA, 42));
+        assertFalse(semData.temData());
+        assertEquals("000042", new FormatoCodigoLote("", null, 6).formatar(DATA, 42));
+    }
+
+    @Test
+    void contadorJaFormatado() {
+        assertEquals("LOTE-20261018-00000000ABCDE",
+                new FormatoCodigoLote("LOTE", "yyyyMMdd", 13).formatar(DATA, "00000000ABCDE"));
+    }
+
+    // Regex do Postgres que acha o contador dos códigos antigos sem data (LOTE-123456)
+    @Test
+    void regexSemDataEscapaOPrefixo() {
+        assertEquals("^LOTE-([0-9]{1,18})$", new FormatoCodigoLote("LOTE", "", 6).regexSemData());
+        assertEquals("^LT\\.A-([0-9]{1,18})$", new FormatoCodigoLote("LT.A", "", 6).regexSemData());
+        assertEquals("^([0-9]{1,18})$", new FormatoCodigoLote(null, "", 6).regexSemData());
+    }
+}
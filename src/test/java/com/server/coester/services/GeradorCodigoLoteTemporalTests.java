@@ -0,0 +1,92 @@
+package com.server.coester.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Sem banco: o JdbcTemplate só é usado na retomada do @PostConstruct, aqui chamada direto
+class GeradorCodigoLoteTemporalTests {
+
+    private static final int DESLOCAMENTO_INSTANTE = GeradorCodigoLoteTemporal.BITS_NO + GeradorCodigoLoteTemporal.BITS_CONTADOR;
+
+    @Test
+    void codigosUnicosEmOrdemAlfabetica() {
+        GeradorCodigoLoteTemporal gerador = new GeradorCodigoLoteTemporal(null, "LOTE", "", 3);
+
+        // Mais que 4096 no mesmo ms força o avanço do instante lógico
+        String anterior = "";
+        Set<String> codigos = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            String codigo = gerador.proximoCodigo();
+            assertTrue(codigo.compareTo(anterior) > 0);
+            assertTrue(codigos.add(codigo));
+            anterior = codigo;
+        }
+    }
+
+    @Test
+    void larguraFixaComNumeroDoNo() {
+        String codigo = new GeradorCodigoLoteTemporal(null, "LOTE", "", 5).proximoCodigo();
+        String id = codigo.substring("LOTE-".length());
+
+        assertEquals(GeradorCodigoLoteTemporal.LARGURA, id.length());
+        long no = (Long.parseLong(id, 36) >>> GeradorCodigoLoteTemporal.BITS_CONTADOR)
+                & ((1L << GeradorCodigoLoteTemporal.BITS_NO) - 1);
+        assertEquals(5L, no);
+    }
+
+    @Test
+    void noForaDoIntervalo() {
+        assertThrows(IllegalArgumentException.class, () -> new GeradorCodigoLoteTemporal(null, "LOTE", "", -1));
+        assertThrows(IllegalArgumentException.class, () -> new GeradorCodigoLoteTemporal(null, "LOTE", "", 1024));
+    }
+
+    // Códigos emitidos antes do reinício com instante lógico à frente do relógio não se repetem
+    @Test
+    void retomaDepoisDoMaiorCodigoEmitido() {
+        long agora = System.currentTimeMillis() - GeradorCodigoLoteTemporal.EPOCA;
+        long instanteAdiantado = agora + 60_000;
+        String maior = id(instanteAdiantado, 3, (1L << GeradorCodigoLoteTemporal.BITS_CONTADOR) - 1);
+
+        GeradorCodigoLoteTemporal gerador = new GeradorCodigoLoteTemporal(null, "LOTE", "", 3);
+        gerador.retomar(maior, agora);
+        String proximo = gerador.proximoCodigo().substring("LOTE-".length());
+
+        assertTrue(proximo.compareTo(maior) > 0);
+        assertEquals(instanteAdiantado + 1, Long.parseLong(proximo, 36) >>> DESLOCAMENTO_INSTANTE);
+    }
+
+    @Test
+    void ignoraCodigoMuitoNoFuturo() {
+        long agora = System.currentTimeMillis() - GeradorCodigoLoteTemporal.EPOCA;
+        String corrompido = id(agora + GeradorCodigoLoteTemporal.TOLERANCIA_FUTURO_MS + 60_000, 0, 0);
+
+        GeradorCodigoLoteTemporal gerador = new GeradorCodigoLoteTemporal(null, "LOTE", "", 0);
+        gerador.retomar(corrompido, agora);
+        long instante = Long.parseLong(gerador.proximoCodigo().substring("LOTE-".length()), 36) >>> DESLOCAMENTO_INSTANTE;
+
+        // Seguiu o relógio, não o código corrompido
+        assertTrue(instante < agora + 60_000);
+    }
+
+    @Test
+    void ignoraIdQueNaoCabeEm63Bits() {
+        GeradorCodigoLoteTemporal gerador = new GeradorCodigoLoteTemporal(null, "LOTE", "", 0);
+        gerador.retomar("ZZZZZZZZZZZZZ", 0);
+        gerador.retomar(null, 0);
+
+        assertEquals(GeradorCodigoLoteTemporal.LARGURA, gerador.proximoCodigo().length() - "LOTE-".length());
+    }
+
+    private static String id(long instante, long no, long contador) {
+        long id = (instante << DESLOCAMENTO_INSTANTE) | (no << GeradorCodigoLoteTemporal.BITS_CONTADOR) | contador;
+        String base36 = Long.toString(id, 36).toUpperCase(Locale.ROOT);
+        return "0".repeat(GeradorCodigoLoteTemporal.LARGURA - base36.length()) + base36;
+    }
+}
@@ -0,0 +1,66 @@
+package com.server.coester.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LeitorImportacaoTests {
+
+    @Test
+    void formatoPeloContentType() {
+        assertEquals(LeitorImportacao.Formato.CSV, LeitorImportacao.formatoDe("text/csv; charset=UTF-8"));
+        assertEquals(LeitorImportacao.Formato.CSV, LeitorImportacao.formatoDe("TEXT/CSV"));
+        assertEquals(LeitorImportacao.Formato.NDJSON, LeitorImportacao.formatoDe("application/x-ndjson"));
+        assertEquals(LeitorImportacao.Formato.NDJSON, LeitorImportacao.formatoDe(null));
+    }
+
+    @Test
+    void separadorPeloCabecalho() {
+        assertEquals(';', LeitorImportacao.separadorCsv("comprimento;diametro"));
+        assertEquals(',', LeitorImportacao.separadorCsv("comprimento,diametro"));
+    }
+
+    @Test
+    void dividirCsvComAspas() {
+        assertArrayEquals(new String[]{"50,01", "texto com \"aspas\"", ""},
+                LeitorImportacao.dividirCsv(" \"50,01\" ;\"texto com \"\"aspas\"\"\"; ", ';'));
+    }
+
+    @Test
+    void numeroComVirgulaDecimalNoSeparadorPontoEVirgula() {
+        assertEquals(50.01, LeitorImportacao.numeroCsv("50,01", ';'));
+        assertEquals(50.01, LeitorImportacao.numeroCsv("50.01", ','));
+        assertNull(LeitorImportacao.numeroCsv("", ','));
+    }
+
+    @Test
+    void numeroInvalidoLancaNumberFormatException() {
+        assertThrows(NumberFormatException.class, () -> LeitorImportacao.numeroCsv("abc", ','));
+        // Com ',' como separador a vírgula não é decimal
+        assertThrows(NumberFormatException.class, () -> LeitorImportacao.numeroCsv("50,01", ','));
+    }
+
+    // Double.parseDouble aceita as duas formas, mas não são medições
+    @Test
+    void recusaNaNEInfinity() {
+        assertThrows(NumberFormatException.class, () -> LeitorImportacao.numeroCsv("NaN", ','));
+        assertThrows(NumberFormatException.class, () -> LeitorImportacao.numeroCsv("Infinity", ';'));
+        assertThrows(NumberFormatException.class, () -> LeitorImportacao.numeroCsv("-Infinity", ','));
+    }
+
+    @Test
+    void removeBom() {
+        assertEquals("comprimento", LeitorImportacao.semBom("\uFEFFcomprimento"));
+        assertEquals("comprimento", LeitorImportacao.semBom("comprimento"));
+        assertEquals("", LeitorImportacao.semBom(""));
+    }
+
+    @Test
+    void mensagemDaExcecao() {
+        assertEquals("falhou", LeitorImportacao.mensagemDe(new IllegalArgumentException("falhou")));
+        assertEquals("NullPointerException", LeitorImportacao.mensagemDe(new NullPointerException()));
+    }
+}
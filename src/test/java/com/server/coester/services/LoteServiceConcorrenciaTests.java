@@ -0,0 +1,111 @@
+package com.server.coester.services;
+
+import com.server.coester.dtos.AdicionarMedicaoRequest;
+import com.server.coester.entities.Lote;
+import com.server.coester.entities.Medicao;
+import com.server.coester.entities.TipoPeca;
+import com.server.coester.repositories.LoteRepository;
+import com.server.coester.repositories.MedicaoRepository;
+import com.server.coester.repositories.TipoPecaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Vários operadores medindo o mesmo lote ao mesmo tempo: nenhuma medição pode se perder
+@SpringBootTest(properties = "coester.auth.token.segredo=segredo-de-teste-com-pelo-menos-32-bytes")
+class LoteServiceConcorrenciaTests {
+
+    private static final int ESCRITORES = 32;
+    private static final int MEDICOES_POR_ESCRITOR = 10;
+
+    @Autowired
+    private LoteService loteService;
+
+    @Autowired
+    private LoteRepository loteRepository;
+
+    @Autowired
+    private MedicaoRepository medicaoRepository;
+
+    @Autowired
+    private TipoPecaRepository tipoPecaRepository;
+
+    private TipoPeca tipoPeca;
+    private Lote lote;
+
+    @BeforeEach
+    void criarLote() {
+        tipoPeca = new TipoPeca();
+        tipoPeca.setNome("Teste concorrência");
+        tipoPeca.setMetadadosCotas("""
+                {"dimensoes": [{"nome": "comprimento", "label": "Comprimento", "tipo": "number",
+                                "unidade": "mm", "tolerancia": 0.1, "valorPadrao": 50.0}]}
+                """);
+        tipoPeca = tipoPecaRepository.save(tipoPeca);
+
+        lote = new Lote();
+        lote.setCodigoLote("TESTE-" + System.nanoTime());
+        lote.setDescricao("Lote do teste de concorrência");
+        lote.setTipoPeca(tipoPeca);
+        lote.setQuantidadePecas(10_000);
+        lote.setQuantidadeAmostrasDesejada(ESCRITORES * MEDICOES_POR_ESCRITOR);
+        lote = loteRepository.save(lote);
+    }
+
+    @AfterEach
+    void removerLote() {
+        loteService.recomecarLote(lote.getId());
+        loteRepository.deleteById(lote.getId());
+        tipoPecaRepository.deleteById(tipoPeca.getId());
+    }
+
+    @Test
+    void escritoresParalelosNaoPerdemMedicoes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(ESCRITORES);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> escritores = new ArrayList<>();
+
+        for (int escritor = 0; escritor < ESCRITORES; escritor++) {
+            // Escritores pares medem peças aprovadas, ímpares peças reprovadas
+            double comprimento = escritor % 2 == 0 ? 50.0 : 51.0;
+            escritores.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < MEDICOES_POR_ESCRITOR; i++) {
+                    loteService.adicionarMedicao(new AdicionarMedicaoRequest(
+                            lote.getId(), Map.of("comprimento", comprimento), null));
+                }
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> escritor : escritores) {
+            escritor.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        int total = ESCRITORES * MEDICOES_POR_ESCRITOR;
+        List<Integer> pecaNumeros = medicaoRepository.findByLoteIdOrderByPecaNumeroAsc(lote.getId()).stream()
+                .map(Medicao::getPecaNumero)
+                .toList();
+
+        // Nenhuma medição perdida e números de peça 1..N sem repetição nem buraco
+        assertEquals(IntStream.rangeClosed(1, total).boxed().toList(), pecaNumeros);
+
+        Lote atualizado = loteRepository.findById(lote.getId()).orElseThrow();
+        assertEquals(total, atualizado.getQuantidadeAmostras());
+        assertEquals(total / 2, atualizado.getPecasAprovadas());
+        assertEquals(total / 2, atualizado.getPecasReprovadas());
+        assertEquals(total, atualizado.getUltimoPecaNumero());
+    }
+}
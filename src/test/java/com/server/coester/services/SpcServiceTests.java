@@ -0,0 +1,114 @@
+package com.server.coester.services;
+
+import com.server.coester.dtos.CotaMetadata;
+import com.server.coester.dtos.EstatisticaCotaResponse;
+import com.server.coester.entities.EstatisticaCota;
+import com.server.coester.entities.Lote;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Cálculos do SPC a partir das estatísticas acumuladas (sem banco: acumular + toResponse)
+class SpcServiceTests {
+
+    private static final double DELTA = 1e-9;
+
+    // Especificação 10,0 ± 0,3
+    private final CotaMetadata cota = new CotaMetadata("diametro", "Diâmetro", "number", "mm", 0.3, 10.0);
+    private final AvaliadorTolerancia avaliador = AvaliadorTolerancia.compilar("teste", List.of(cota));
+    private final SpcService spcService = new SpcService();
+    private final Lote lote = new Lote();
+
+    @Test
+    void cpCpkPeloDesvioDentroDosSubgrupos() {
+        // Dois subgrupos de 5: amplitudes 0,2 e 0,2, médias 10,0 e 10,1
+        double[] valores = {10.0, 10.1, 9.9, 10.0, 10.0, 10.1, 10.2, 10.0, 10.1, 10.1};
+        EstatisticaCotaResponse resposta = responder(valores);
+
+        double desvioDentro = 0.2 / 2.326;
+        assertEquals(2L, resposta.subgrupos());
+        assertEquals(10.05, resposta.mediaGeralSubgrupos(), DELTA);
+        assertEquals(0.2, resposta.amplitudeMedia(), DELTA);
+        assertEquals(desvioDentro, resposta.desvioPadraoDentroSubgrupos(), DELTA);
+        assertEquals(0.6 / (6 * desvioDentro), resposta.cp(), DELTA);
+        assertEquals(0.25 / (3 * desvioDentro), resposta.cpk(), DELTA);
+    }
+
+    @Test
+    void ppPpkPeloDesvioDeTodasAsAmostras() {
+        double[] valores = {10.0, 10.1, 9.9, 10.0, 10.0, 10.1, 10.2, 10.0, 10.1, 10.1};
+        EstatisticaCotaResponse resposta = responder(valores);
+
+        double media = 10.05;
+        double soma = 0;
+        for (double valor : valores) {
+            soma += (valor - media) * (valor - media);
+        }
+        double desvio = Math.sqrt(soma / (valores.length - 1));
+
+        assertEquals(10L, resposta.amostras());
+        assertEquals(media, resposta.media(), DELTA);
+        assertEquals(desvio, resposta.desvioPadrao(), DELTA);
+        assertEquals(0.6 / (6 * desvio), resposta.pp(), DELTA);
+        assertEquals(0.25 / (3 * desvio), resposta.ppk(), DELTA);
+    }
+
+    @Test
+    void limitesDeControleXBarraR() {
+        EstatisticaCotaResponse resposta = responder(new double[]{10.0, 10.1, 9.9, 10.0, 10.0, 10.1, 10.2, 10.0, 10.1, 10.1});
+
+        assertEquals(10.05 + 0.577 * 0.2, resposta.limiteSuperiorControleMedia(), DELTA);
+        assertEquals(10.05 - 0.577 * 0.2, resposta.limiteInferiorControleMedia(), DELTA);
+        assertEquals(2.114 * 0.2, resposta.limiteSuperiorControleAmplitude(), DELTA);
+        assertEquals(0.0, resposta.limiteInferiorControleAmplitude(), DELTA);
+    }
+
+    // Sem subgrupo completo não há desvio dentro: Cp/Cpk nulos, Pp/Ppk já calculados
+    @Test
+    void semSubgrupoCompletoSoPpPpk() {
+        EstatisticaCotaResponse resposta = responder(new double[]{10.0, 10.1, 9.9});
+
+        assertEquals(0L, resposta.subgrupos());
+        assertNull(resposta.cp());
+        assertNull(resposta.cpk());
+        assertNull(resposta.desvioPadraoDentroSubgrupos());
+        assertNotNull(resposta.pp());
+        assertNotNull(resposta.ppk());
+    }
+
+    @Test
+    void ignoraValoresNaoFinitos() {
+        EstatisticaCotaResponse resposta = responder(new double[]{10.0, Double.NaN, 10.2, Double.POSITIVE_INFINITY});
+
+        assertEquals(2L, resposta.amostras());
+        assertEquals(10.1, resposta.media(), DELTA);
+        assertEquals(10.0, resposta.minimo(), DELTA);
+        assertEquals(10.2, resposta.maximo(), DELTA);
+    }
+
+    @Test
+    void cotaSemMedicoes() {
+        EstatisticaCotaResponse resposta = spcService.toResponse(cota, null);
+
+        assertEquals(0L, resposta.amostras());
+        assertEquals(9.7, resposta.limiteInferiorEspecificacao(), DELTA);
+        assertEquals(10.3, resposta.limiteSuperiorEspecificacao(), DELTA);
+        assertNull(resposta.media());
+        assertNull(resposta.cp());
+        assertNull(resposta.pp());
+    }
+
+    private EstatisticaCotaResponse responder(double[] valores) {
+        Map<String, EstatisticaCota> porCota = new HashMap<>();
+        for (double valor : valores) {
+            spcService.acumular(lote, avaliador, Map.of("diametro", valor), porCota);
+        }
+        return spcService.toResponse(cota, porCota.get("diametro"));
+    }
+}
@@ -0,0 +1,106 @@
+package com.server.coester.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.coester.entities.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenServiceTests {
+
+    private static final String SEGREDO = "segredo-de-teste-com-pelo-menos-32-bytes";
+
+    @Test
+    void validaTokenGerado() {
+        TokenService tokenService = tokenService(SEGREDO, 60);
+
+        Optional<TokenService.Sessao> sessao = tokenService.validarToken(tokenService.gerarToken(usuario()));
+
+        assertTrue(sessao.isPresent());
+        assertEquals(7L, sessao.get().id());
+        assertEquals("operador@coester.com", sessao.get().email());
+        assertEquals(List.of("OPERADOR"), sessao.get().roles());
+    }
+
+    @Test
+    void recusaTokenAlterado() {
+        TokenService tokenService = tokenService(SEGREDO, 60);
+        String token = tokenService.gerarToken(usuario());
+        String payload = token.substring(0, token.indexOf('.'));
+        String assinatura = token.substring(token.indexOf('.') + 1);
+
+        // Outro payload com a assinatura original
+        String outroPayload = tokenService.gerarToken(outroUsuario());
+        String forjado = outroPayload.substring(0, outroPayload.indexOf('.')) + "." + assinatura;
+
+        assertNotEquals(payload, forjado.substring(0, forjado.indexOf('.')));
+        assertFalse(tokenService.validarToken(forjado).isPresent());
+        assertFalse(tokenService.validarToken(payload).isPresent());
+        assertFalse(tokenService.validarToken(payload + ".").isPresent());
+        assertFalse(tokenService.validarToken("lixo").isPresent());
+    }
+
+    @Test
+    void recusaTokenDeOutroSegredo() {
+        String token = tokenService(SEGREDO, 60).gerarToken(usuario());
+
+        assertFalse(tokenService("outro-segredo-de-teste-com-mais-de-32-bytes", 60).validarToken(token).isPresent());
+    }
+
+    @Test
+    void recusaTokenExpirado() {
+        TokenService tokenService = tokenService(SEGREDO, -1);
+
+        assertFalse(tokenService.validarToken(tokenService.gerarToken(usuario())).isPresent());
+    }
+
+    @Test
+    void naoSobeComSegredoCurto() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TokenService("curto", 60, new StandardEnvironment()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TokenService("", 60, new StandardEnvironment()));
+    }
+
+    // Perfil local: chave aleatória por processo, tokens continuam válidos enquanto ele roda
+    @Test
+    void perfilLocalAceitaSegredoAusente() {
+        StandardEnvironment ambiente = new StandardEnvironment();
+        ambiente.setActiveProfiles("local");
+        TokenService tokenService = new TokenService("", 60, ambiente);
+        ReflectionTestUtils.setField(tokenService, "objectMapper", new ObjectMapper());
+
+        assertTrue(tokenService.validarToken(tokenService.gerarToken(usuario())).isPresent());
+    }
+
+    private static TokenService tokenService(String segredo, long validadeMinutos) {
+        TokenService tokenService = new TokenService(segredo, validadeMinutos, new StandardEnvironment());
+        ReflectionTestUtils.setField(tokenService, "objectMapper", new ObjectMapper());
+        return tokenService;
+    }
+
+    private static Usuario usuario() {
+        Usuario usuario = new Usuario();
+        usuario.setId(7L);
+        usuario.setUsername("Operador");
+        usuario.setEmail("operador@coester.com");
+        usuario.setArrayRoles(List.of("OPERADOR"));
+        return usuario;
+    }
+
+    private static Usuario outroUsuario() {
+        Usuario usuario = usuario();
+        usuario.setId(1L);
+        usuario.setArrayRoles(List.of("ADMINISTRADOR"));
+        return usuario;
+    }
+}